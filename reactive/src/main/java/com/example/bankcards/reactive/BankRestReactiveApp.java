@@ -0,0 +1,16 @@
+package com.example.bankcards.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.security.reactive.ReactiveUserDetailsServiceAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Неблокирующий вариант /api/cards и /api/transfers поверх той же схемы БД.
+// Схему (Liquibase), логин и /api/admin обслуживает основное приложение
+@SpringBootApplication(exclude = ReactiveUserDetailsServiceAutoConfiguration.class)
+@EnableScheduling
+public class BankRestReactiveApp {
+    public static void main(String[] args) {
+        SpringApplication.run(BankRestReactiveApp.class, args);
+    }
+}
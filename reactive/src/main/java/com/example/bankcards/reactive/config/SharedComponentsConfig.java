@@ -0,0 +1,24 @@
+package com.example.bankcards.reactive.config;
+
+import com.example.bankcards.security.CardDataEncryptor;
+import com.example.bankcards.security.JwtTokenUtil;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Компоненты основного приложения без зависимостей от servlet и JPA: их пакеты не сканируются,
+// поэтому бины объявлены явно (@Value и @PostConstruct отрабатывают как обычно)
+@Configuration
+public class SharedComponentsConfig {
+
+    // Та же проверка подписи, срока действия и тот же кэш проверенных токенов
+    @Bean
+    public JwtTokenUtil jwtTokenUtil() {
+        return new JwtTokenUtil();
+    }
+
+    // Те же форматы шифротекста и blind index, что у карт, выпущенных основным приложением
+    @Bean
+    public CardDataEncryptor cardDataEncryptor() {
+        return new CardDataEncryptor();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.bankcards.reactive.controller;
+
+import com.example.bankcards.dto.CardCreateRequest;
+import com.example.bankcards.dto.CardResponse;
+import com.example.bankcards.dto.CursorPageResponse;
+import com.example.bankcards.dto.PageResponse;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.reactive.security.JwtAuthenticationWebFilter;
+import com.example.bankcards.reactive.service.ReactiveCardService;
+import com.example.bankcards.security.JwtClaims;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+// Те же пути и ответы, что у CardController
+@RestController
+@RequestMapping("/api/cards")
+public class ReactiveCardController {
+
+    @Autowired
+    private ReactiveCardService cardService;
+
+    @PostMapping
+    public Mono<ResponseEntity<CardResponse>> createCard(
+            @Valid @RequestBody CardCreateRequest request,
+            @RequestAttribute(JwtAuthenticationWebFilter.CLAIMS_ATTRIBUTE) JwtClaims claims) {
+        return cardService.createCard(request, claims.username())
+                .map(response -> ResponseEntity.status(HttpStatus.CREATED).body(response));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<CardResponse>> getCardById(
+            @PathVariable Long id,
+            @RequestAttribute(JwtAuthenticationWebFilter.CLAIMS_ATTRIBUTE) JwtClaims claims) {
+        return cardService.getCardById(id, claims.username()).map(ResponseEntity::ok);
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<PageResponse<CardResponse>>> getUserCards(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) CardStatus status,
+            @RequestAttribute(JwtAuthenticationWebFilter.CLAIMS_ATTRIBUTE) JwtClaims claims) {
+        return cardService.getUserCards(claims.username(), page, size, search, status).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(params = "cursor")
+    public Mono<ResponseEntity<CursorPageResponse<CardResponse>>> getUserCardsByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) CardStatus status,
+            @RequestAttribute(JwtAuthenticationWebFilter.CLAIMS_ATTRIBUTE) JwtClaims claims) {
+        return cardService.getUserCardsByCursor(claims.username(), cursor, size, status).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/{id}/block")
+    public Mono<ResponseEntity<CardResponse>> blockCard(
+            @PathVariable Long id,
+            @RequestAttribute(JwtAuthenticationWebFilter.CLAIMS_ATTRIBUTE) JwtClaims claims) {
+        return cardService.blockCard(id, claims.username()).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/{id}/activate")
+    public Mono<ResponseEntity<CardResponse>> activateCard(
+            @PathVariable Long id,
+            @RequestAttribute(JwtAuthenticationWebFilter.CLAIMS_ATTRIBUTE) JwtClaims claims) {
+        return cardService.activateCard(id, claims.username()).map(ResponseEntity::ok);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.bankcards.reactive.controller;
+
+import com.example.bankcards.dto.BatchTransferRequest;
+import com.example.bankcards.dto.BatchTransferResponse;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.dto.TransferResponse;
+import com.example.bankcards.reactive.security.JwtAuthenticationWebFilter;
+import com.example.bankcards.reactive.service.ReactiveTransferService;
+import com.example.bankcards.security.JwtClaims;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+// Те же пути и ответы, что у TransferController
+@RestController
+@RequestMapping("/api/transfers")
+public class ReactiveTransferController {
+
+    @Autowired
+    private ReactiveTransferService transferService;
+
+    @PostMapping
+    public Mono<ResponseEntity<TransferResponse>> transfer(
+            @Valid @RequestBody TransferRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestAttribute(JwtAuthenticationWebFilter.CLAIMS_ATTRIBUTE) JwtClaims claims) {
+        return transferService.transferBetweenOwnCards(request, claims.username(), idempotencyKey)
+                .map(response -> ResponseEntity.status(HttpStatus.CREATED).body(response));
+    }
+
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<BatchTransferResponse>> transferBatch(
+            @Valid @RequestBody BatchTransferRequest request,
+            @RequestAttribute(JwtAuthenticationWebFilter.CLAIMS_ATTRIBUTE) JwtClaims claims) {
+        return transferService.transferBatch(request.getTransfers(), claims.username()).map(ResponseEntity::ok);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.bankcards.reactive.repository;
+
+import com.example.bankcards.dto.CardResponse;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.CardType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Строка cards без зашифрованных реквизитов
+public record CardRow(Long id, String maskedCard, String cardHolderName, BigDecimal balance, LocalDate expiryDate,
+                      CardStatus status, CardType cardType, boolean isDefault, LocalDateTime createdAt) {
+
+    public boolean isExpired() {
+        return LocalDate.now().isAfter(expiryDate);
+    }
+
+    // Статус с учётом срока, как Card.getEffectiveStatus()
+    public CardResponse toResponse() {
+        return new CardResponse(id, maskedCard, cardHolderName, balance, expiryDate,
+                isExpired() ? CardStatus.EXPIRED : status, cardType, isDefault);
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.bankcards.reactive.repository;
+
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.CardType;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Запросы к cards через R2DBC. SQL повторяет запросы CardRepository и использует те же индексы
+@Repository
+public class ReactiveCardRepository {
+
+    private static final String COLUMNS =
+            "id, masked_card, card_holder_name, balance, expiry_date, status, card_type, is_default, created_at";
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    public Mono<CardRow> findByIdAndUserId(Long id, Long userId) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM cards WHERE id = :id AND user_id = :userId")
+                .bind("id", id)
+                .bind("userId", userId)
+                .map((row, metadata) -> toCardRow(row))
+                .one();
+    }
+
+    // Страница карт пользователя с фильтром по шаблону last_four, полному номеру, шаблону имени держателя или статусу
+    public Flux<CardRow> findPage(Long userId, CardFilter filter, int limit, long offset) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        String where = where(userId, filter, params);
+        params.put("limit", limit);
+        params.put("offset", offset);
+        return bindAll(databaseClient.sql("SELECT " + COLUMNS + " FROM cards WHERE " + where +
+                        " ORDER BY created_at DESC, id DESC LIMIT :limit OFFSET :offset"), params)
+                .map((row, metadata) -> toCardRow(row))
+                .all();
+    }
+
+    public Mono<Long> count(Long userId, CardFilter filter) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        String where = where(userId, filter, params);
+        return bindAll(databaseClient.sql("SELECT count(*) AS total FROM cards WHERE " + where), params)
+                .map((row, metadata) -> row.get("total", Long.class))
+                .one();
+    }
+
+    // Keyset-страница по (created_at, id) DESC, как findUserCardsFirstPage/findUserCardsAfter
+    public Flux<CardRow> findAfter(Long userId, CardStatus status, LocalDateTime createdAt, Long id, int limit) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        StringBuilder where = new StringBuilder("user_id = :userId");
+        params.put("userId", userId);
+        if (status != null) {
+            where.append(" AND ").append(effectiveStatus(status));
+            params.put("status", status.name());
+        }
+        if (createdAt != null) {
+            where.append(" AND (created_at, id) < (:createdAt, :id)");
+            params.put("createdAt", createdAt);
+            params.put("id", id);
+        }
+        params.put("limit", limit);
+        return bindAll(databaseClient.sql("SELECT " + COLUMNS + " FROM cards WHERE " + where +
+                        " ORDER BY created_at DESC, id DESC LIMIT :limit"), params)
+                .map((row, metadata) -> toCardRow(row))
+                .all();
+    }
+
+    // id из того же пула sequence, что у JPA: значение nextval и предшествующий ему блок достаются только этому вызову
+    public Mono<CardRow> insert(Long userId, NewCard card) {
+        return databaseClient.sql("INSERT INTO cards (id, card_number, card_number_hash, masked_card, last_four, " +
+                        "card_holder_name, balance, expiry_date, status, ccv, pin_code, card_type, is_default, user_id, " +
+                        "created_at, update_at, version) " +
+                        "VALUES (nextval('cards_id_seq'), :cardNumber, :cardNumberHash, :maskedCard, :lastFour, " +
+                        ":cardHolderName, 0, :expiryDate, :status, :ccv, :pinCode, :cardType, false, :userId, " +
+                        "now(), now(), 0) RETURNING " + COLUMNS)
+                .bind("cardNumber", card.cardNumber())
+                .bind("cardNumberHash", card.cardNumberHash())
+                .bind("maskedCard", card.maskedCard())
+                .bind("lastFour", card.lastFour())
+                .bind("cardHolderName", card.cardHolderName())
+                .bind("expiryDate", card.expiryDate())
+                .bind("status", card.status().name())
+                .bind("ccv", card.ccv())
+                .bind("pinCode", card.pinCode())
+                .bind("cardType", card.cardType().name())
+                .bind("userId", userId)
+                .map((row, metadata) -> toCardRow(row))
+                .one();
+    }
+
+    public Mono<CardRow> updateStatus(Long id, CardStatus status) {
+        return databaseClient.sql("UPDATE cards SET status = :status, version = version + 1, update_at = now() " +
+                        "WHERE id = :id RETURNING " + COLUMNS)
+                .bind("status", status.name())
+                .bind("id", id)
+                .map((row, metadata) -> toCardRow(row))
+                .one();
+    }
+
+    // Тот же условный UPDATE, что CardRepository.applyTransfer, с блокировкой строк в порядке id:
+    // меньше двух строк - перевод не состоялся
+    public Flux<TransferredCard> applyTransfer(Long fromId, Long toId, Long userId, BigDecimal amount) {
+        return databaseClient.sql("WITH locked AS MATERIALIZED (" +
+                        "SELECT id FROM cards WHERE id IN (:fromId, :toId) AND user_id = :userId ORDER BY id FOR UPDATE) " +
+                        "UPDATE cards c SET " +
+                        "balance = c.balance + CASE WHEN c.id = :toId THEN :amount ELSE -:amount END, " +
+                        "version = c.version + 1, update_at = now() " +
+                        "FROM locked WHERE c.id = locked.id " +
+                        "AND c.status = 'ACTIVE' AND c.expiry_date >= current_date " +
+                        "AND (c.id = :toId OR c.balance >= :amount) " +
+                        "RETURNING c.id, c.masked_card")
+                .bind("fromId", fromId)
+                .bind("toId", toId)
+                .bind("userId", userId)
+                .bind("amount", amount)
+                .map((row, metadata) -> new TransferredCard(row.get("id", Long.class), row.get("masked_card", String.class)))
+                .all();
+    }
+
+    // Карты пакета переводов с блокировкой строк в порядке id, как findAllByUserIdAndIdInForUpdate
+    public Flux<CardRow> findAllByUserIdAndIdInForUpdate(Long userId, Collection<Long> ids) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM cards WHERE user_id = :userId AND id = ANY(:ids) " +
+                        "ORDER BY id FOR UPDATE")
+                .bind("userId", userId)
+                .bind("ids", ids.toArray(new Long[0]))
+                .map((row, metadata) -> toCardRow(row))
+                .all();
+    }
+
+    public Mono<Void> updateBalance(Long id, BigDecimal balance) {
+        return databaseClient.sql("UPDATE cards SET balance = :balance, version = version + 1, update_at = now() " +
+                        "WHERE id = :id")
+                .bind("balance", balance)
+                .bind("id", id)
+                .then();
+    }
+
+    private String where(Long userId, CardFilter filter, Map<String, Object> params) {
+        StringBuilder where = new StringBuilder("user_id = :userId");
+        params.put("userId", userId);
+        if (filter.lastFourPattern() != null) {
+            where.append(" AND last_four LIKE :lastFour");
+            params.put("lastFour", filter.lastFourPattern());
+        } else if (filter.cardNumberHash() != null) {
+            where.append(" AND card_number_hash = :cardNumberHash");
+            params.put("cardNumberHash", filter.cardNumberHash());
+        } else if (filter.holderNamePattern() != null) {
+            where.append(" AND lower(card_holder_name) LIKE :holderName ESCAPE '\\'");
+            params.put("holderName", filter.holderNamePattern());
+        } else if (filter.status() != null) {
+            where.append(" AND ").append(effectiveStatus(filter.status()));
+            params.put("status", filter.status().name());
+        }
+        return where.toString();
+    }
+
+    // Статус с учётом срока, как CardRepository.EFFECTIVE_STATUS: истекшая карта считается EXPIRED
+    private String effectiveStatus(CardStatus status) {
+        return status == CardStatus.EXPIRED
+                ? "(status = :status OR expiry_date < current_date)"
+                : "(status = :status AND expiry_date >= current_date)";
+    }
+
+    private DatabaseClient.GenericExecuteSpec bindAll(DatabaseClient.GenericExecuteSpec spec, Map<String, Object> params) {
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            spec = spec.bind(param.getKey(), param.getValue());
+        }
+        return spec;
+    }
+
+    private CardRow toCardRow(Row row) {
+        String cardType = row.get("card_type", String.class);
+        Boolean isDefault = row.get("is_default", Boolean.class);
+        return new CardRow(
+                row.get("id", Long.class),
+                row.get("masked_card", String.class),
+                row.get("card_holder_name", String.class),
+                row.get("balance", BigDecimal.class),
+                row.get("expiry_date", LocalDate.class),
+                CardStatus.valueOf(row.get("status", String.class)),
+                cardType != null ? CardType.valueOf(cardType) : null,
+                Boolean.TRUE.equals(isDefault),
+                row.get("created_at", LocalDateTime.class));
+    }
+
+    // Условия поиска карт пользователя; заполнено не больше одного, как в CardService.getUserCards
+    public record CardFilter(String lastFourPattern, String cardNumberHash, String holderNamePattern, CardStatus status) {
+    }
+
+    public record NewCard(String cardNumber, String cardNumberHash, String maskedCard, String lastFour,
+                          String cardHolderName, LocalDate expiryDate, CardStatus status, String ccv, String pinCode,
+                          CardType cardType) {
+    }
+
+    public record TransferredCard(Long id, String maskedCard) {
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.bankcards.reactive.repository;
+
+import com.example.bankcards.dto.TransferResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Журнал переводов (transfers + ledger_entries) и ключи идемпотентности, те же таблицы, что у LedgerWriter
+// и IdempotencyKeyStore. Вызывается только внутри транзакции перевода
+@Repository
+public class ReactiveTransferRepository {
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    // Двойная запись: списание с одной карты и зачисление на другую на одну сумму.
+    // id из тех же sequence, что у JPA: значение nextval и предшествующий ему блок достаются только этому вызову
+    public Mono<TransferResponse> record(Long userId, Long fromCardId, String fromCardMasked,
+                                         Long toCardId, String toCardMasked, BigDecimal amount) {
+        LocalDateTime now = LocalDateTime.now();
+        return databaseClient.sql("INSERT INTO transfers (id, user_id, from_card_id, from_card_masked, to_card_id, " +
+                        "to_card_masked, amount, created_at) " +
+                        "VALUES (nextval('transfers_seq'), :userId, :fromCardId, :fromCardMasked, :toCardId, " +
+                        ":toCardMasked, :amount, :createdAt) RETURNING id")
+                .bind("userId", userId)
+                .bind("fromCardId", fromCardId)
+                .bind("fromCardMasked", fromCardMasked)
+                .bind("toCardId", toCardId)
+                .bind("toCardMasked", toCardMasked)
+                .bind("amount", amount)
+                .bind("createdAt", now)
+                .map((row, metadata) -> row.get("id", Long.class))
+                .one()
+                .flatMap(transferId -> databaseClient.sql("INSERT INTO ledger_entries " +
+                                "(id, transfer_id, card_id, entry_type, amount, created_at) VALUES " +
+                                "(nextval('ledger_entries_seq'), :transferId, :fromCardId, 'DEBIT', :amount, :createdAt), " +
+                                "(nextval('ledger_entries_seq'), :transferId, :toCardId, 'CREDIT', :amount, :createdAt)")
+                        .bind("transferId", transferId)
+                        .bind("fromCardId", fromCardId)
+                        .bind("toCardId", toCardId)
+                        .bind("amount", amount)
+                        .bind("createdAt", now)
+                        .then()
+                        .thenReturn(new TransferResponse(transferId, fromCardId, fromCardMasked,
+                                toCardId, toCardMasked, amount, now, "SUCCESS")));
+    }
+
+    public Mono<TransferResponse> findById(Long transferId) {
+        return databaseClient.sql("SELECT id, from_card_id, from_card_masked, to_card_id, to_card_masked, amount, created_at " +
+                        "FROM transfers WHERE id = :id")
+                .bind("id", transferId)
+                .map((row, metadata) -> new TransferResponse(
+                        row.get("id", Long.class),
+                        row.get("from_card_id", Long.class),
+                        row.get("from_card_masked", String.class),
+                        row.get("to_card_id", Long.class),
+                        row.get("to_card_masked", String.class),
+                        row.get("amount", BigDecimal.class),
+                        row.get("created_at", LocalDateTime.class),
+                        "SUCCESS"))
+                .one();
+    }
+
+    public Mono<Long> findTransferId(String username, String idempotencyKey) {
+        return databaseClient.sql("SELECT transfer_id FROM idempotency_keys " +
+                        "WHERE username = :username AND idempotency_key = :key")
+                .bind("username", username)
+                .bind("key", idempotencyKey)
+                .map((row, metadata) -> row.get("transfer_id", Long.class))
+                .one();
+    }
+
+    // Ключ без id перевода, первым statement транзакции. Конкурентная вставка того же ключа ждёт
+    // завершения первой транзакции: после её коммита возвращает false, после отката вставляет строку
+    public Mono<Boolean> claim(String username, String idempotencyKey) {
+        return databaseClient.sql("INSERT INTO idempotency_keys (username, idempotency_key, created_at) " +
+                        "VALUES (:username, :key, now()) " +
+                        "ON CONFLICT (username, idempotency_key) DO NOTHING")
+                .bind("username", username)
+                .bind("key", idempotencyKey)
+                .fetch()
+                .rowsUpdated()
+                .map(inserted -> inserted > 0);
+    }
+
+    public Mono<Void> complete(String username, String idempotencyKey, Long transferId) {
+        return databaseClient.sql("UPDATE idempotency_keys SET transfer_id = :transferId " +
+                        "WHERE username = :username AND idempotency_key = :key")
+                .bind("transferId", transferId)
+                .bind("username", username)
+                .bind("key", idempotencyKey)
+                .then();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.bankcards.reactive.security;
+
+import com.example.bankcards.security.JwtClaims;
+import com.example.bankcards.security.JwtTokenUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+// Та же проверка JWT, что в JwtAuthenticationFilter: подпись и срок через JwtTokenUtil (с кэшем),
+// затем отзыв. Проверенные claims кладутся в атрибут запроса, контроллеры берут из него username.
+// Проверка синхронная: после прогрева это обращение к кэшу, без ввода-вывода
+@Component
+@Order(-100)
+public class JwtAuthenticationWebFilter implements WebFilter {
+
+    public static final String CLAIMS_ATTRIBUTE = JwtAuthenticationWebFilter.class.getName() + ".claims";
+
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationWebFilter.class);
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Autowired
+    private ReactiveTokenRevocations tokenRevocations;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!exchange.getRequest().getPath().value().startsWith("/api/")) {
+            return chain.filter(exchange);
+        }
+
+        String header = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        JwtClaims claims = null;
+        if (header != null && header.startsWith("Bearer ")) {
+            try {
+                claims = jwtTokenUtil.verifyToken(header.substring(7));
+            } catch (Exception e) {
+                log.error("Unable to get JWT Token", e);
+            }
+        }
+
+        if (claims != null && tokenRevocations.isRevoked(claims)) {
+            log.debug("JWT Token has been revoked for user {}", claims.username());
+            claims = null;
+        }
+
+        if (claims == null) {
+            // Как в основном приложении без точки входа аутентификации: 403 без тела
+            exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
+            return exchange.getResponse().setComplete();
+        }
+
+        exchange.getAttributes().put(CLAIMS_ATTRIBUTE, claims);
+        return chain.filter(exchange);
+    }
+}
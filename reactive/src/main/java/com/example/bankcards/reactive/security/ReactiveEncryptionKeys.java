@@ -0,0 +1,65 @@
+package com.example.bankcards.reactive.security;
+
+import com.example.bankcards.security.CardDataEncryptor;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// Ключи данных из encryption_keys для CardDataEncryptor, как EncryptionKeyManager.reload().
+// Создание первого ключа и ротацию выполняет основное приложение, здесь ключи только читаются
+@Component
+public class ReactiveEncryptionKeys {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveEncryptionKeys.class);
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private CardDataEncryptor cardDataEncryptor;
+
+    @PostConstruct
+    void init() {
+        load().block(Duration.ofSeconds(30));
+    }
+
+    @Scheduled(fixedDelayString = "${card.encryption.key-refresh-interval:PT1M}")
+    public void reload() {
+        load().subscribe(null, e -> log.warn("Encryption keys reload failed", e));
+    }
+
+    private Mono<Void> load() {
+        return databaseClient.sql("SELECT id, wrapped_key, status FROM encryption_keys")
+                .map((row, metadata) -> new StoredKey(
+                        row.get("id", Integer.class),
+                        row.get("wrapped_key", String.class),
+                        "ACTIVE".equals(row.get("status", String.class))))
+                .all()
+                .collectList()
+                .doOnNext(stored -> {
+                    Map<Integer, SecretKey> keys = new HashMap<>();
+                    Integer activeKeyId = null;
+                    for (StoredKey key : stored) {
+                        keys.put(key.id(), cardDataEncryptor.unwrapKey(key.wrappedKey()));
+                        if (key.active()) {
+                            activeKeyId = key.id();
+                        }
+                    }
+                    cardDataEncryptor.installDataKeys(keys, activeKeyId);
+                })
+                .then();
+    }
+
+    private record StoredKey(Integer id, String wrappedKey, boolean active) {
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.bankcards.reactive.security;
+
+import com.example.bankcards.security.JwtClaims;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+
+// Отсечки отзыва токенов из token_revocations (их пишет основное приложение), в памяти.
+// Правило то же, что в TokenRevocationRegistry: токен с iat не позже отсечки отозван
+@Component
+public class ReactiveTokenRevocations {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveTokenRevocations.class);
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Value("${jwt.expiration}")
+    private Long expiration;
+
+    private volatile Map<String, Instant> revokedBefore = Map.of();
+
+    @PostConstruct
+    void init() {
+        // При старте ждём первую загрузку, чтобы не пропустить уже отозванные токены
+        load().block(Duration.ofSeconds(30));
+    }
+
+    public boolean isRevoked(JwtClaims claims) {
+        Instant cutoff = revokedBefore.get(claims.username());
+        if (cutoff == null) {
+            return false;
+        }
+        return claims.issuedAt() == null || !claims.issuedAt().isAfter(cutoff);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval:PT30S}")
+    public void refresh() {
+        load().subscribe(null, e -> log.warn("Token revocations refresh failed", e));
+    }
+
+    private Mono<Void> load() {
+        LocalDateTime horizon = LocalDateTime.ofInstant(Instant.now().minusMillis(expiration), ZoneId.systemDefault());
+        return databaseClient.sql("SELECT username, revoked_before FROM token_revocations WHERE revoked_before > :horizon")
+                .bind("horizon", horizon)
+                .map((row, metadata) -> Map.entry(
+                        row.get("username", String.class),
+                        row.get("revoked_before", LocalDateTime.class).atZone(ZoneId.systemDefault()).toInstant()))
+                .all()
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .doOnNext(loaded -> revokedBefore = Map.copyOf(loaded))
+                .then();
+    }
+}
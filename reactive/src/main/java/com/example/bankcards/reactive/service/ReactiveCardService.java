@@ -0,0 +1,172 @@
+package com.example.bankcards.reactive.service;
+
+import com.example.bankcards.dto.CardCreateRequest;
+import com.example.bankcards.dto.CardResponse;
+import com.example.bankcards.dto.CursorPageResponse;
+import com.example.bankcards.dto.PageResponse;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.CardType;
+import com.example.bankcards.exception.BadRequestException;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.reactive.repository.CardRow;
+import com.example.bankcards.reactive.repository.ReactiveCardRepository;
+import com.example.bankcards.reactive.repository.ReactiveCardRepository.CardFilter;
+import com.example.bankcards.reactive.repository.ReactiveCardRepository.NewCard;
+import com.example.bankcards.security.CardDataEncryptor;
+import com.example.bankcards.util.CardMaskUtil;
+import com.example.bankcards.util.CardSearchQuery;
+import com.example.bankcards.util.PageCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Те же правила, что в CardService: карты только своего пользователя, статус с учётом срока,
+// истекшую карту нельзя активировать
+@Service
+public class ReactiveCardService {
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+
+    @Autowired
+    private ReactiveCardRepository cardRepository;
+
+    @Autowired
+    private ReactivePrincipalCache principalCache;
+
+    @Autowired
+    private CardDataEncryptor cardDataEncryptor;
+
+    public Mono<CardResponse> createCard(CardCreateRequest request, String username) {
+        // Генерация и шифрование реквизитов - работа на CPU, не на потоке event loop
+        Mono<NewCard> newCard = Mono.fromCallable(() -> newCard(request)).subscribeOn(Schedulers.parallel());
+        return principalCache.resolveUserId(username)
+                .zipWith(newCard)
+                .flatMap(tuple -> cardRepository.insert(tuple.getT1(), tuple.getT2()))
+                .map(CardRow::toResponse);
+    }
+
+    public Mono<CardResponse> getCardById(Long id, String username) {
+        return findOwnCard(id, username).map(CardRow::toResponse);
+    }
+
+    public Mono<PageResponse<CardResponse>> getUserCards(String username, int page, int size, String search, CardStatus status) {
+        if (page < 0 || size < 1) {
+            return Mono.error(new BadRequestException("Page index must not be negative and page size must be positive"));
+        }
+        CardFilter filter = toFilter(search, status);
+        return principalCache.resolveUserId(username)
+                .flatMap(userId -> Mono.zip(
+                        cardRepository.findPage(userId, filter, size, (long) page * size).map(CardRow::toResponse).collectList(),
+                        cardRepository.count(userId, filter)))
+                .map(tuple -> {
+                    long total = tuple.getT2();
+                    int totalPages = (int) ((total + size - 1) / size);
+                    return new PageResponse<>(tuple.getT1(), page, size, total, totalPages, page + 1 >= totalPages);
+                });
+    }
+
+    // Keyset-пагинация: пустой cursor - первая страница, иначе nextCursor предыдущей страницы
+    public Mono<CursorPageResponse<CardResponse>> getUserCardsByCursor(String username, String cursor, int size, CardStatus status) {
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            return Mono.error(new BadRequestException("Page size must be between 1 and " + MAX_CURSOR_PAGE_SIZE));
+        }
+        PageCursor position;
+        try {
+            position = cursor == null || cursor.isBlank() ? null : PageCursor.decode(cursor);
+        } catch (BadRequestException e) {
+            return Mono.error(e);
+        }
+        return principalCache.resolveUserId(username)
+                .flatMap(userId -> cardRepository.findAfter(userId, status,
+                        position != null ? position.createdAt() : null,
+                        position != null ? position.id() : null,
+                        size + 1).collectList())
+                .map(cards -> toCursorPage(cards, size));
+    }
+
+    public Mono<CardResponse> blockCard(Long id, String username) {
+        return findOwnCard(id, username)
+                .flatMap(card -> {
+                    if (card.status() == CardStatus.BLOCKED) {
+                        return Mono.error(new BadRequestException("Card is already blocked"));
+                    }
+                    return cardRepository.updateStatus(card.id(), CardStatus.BLOCKED);
+                })
+                .map(CardRow::toResponse);
+    }
+
+    public Mono<CardResponse> activateCard(Long id, String username) {
+        return findOwnCard(id, username)
+                .flatMap(card -> {
+                    if (card.status() == CardStatus.ACTIVE) {
+                        return Mono.error(new BadRequestException("Card is already active"));
+                    }
+                    if (card.isExpired()) {
+                        return Mono.error(new BadRequestException("Cannot activate expired card"));
+                    }
+                    return cardRepository.updateStatus(card.id(), CardStatus.ACTIVE);
+                })
+                .map(CardRow::toResponse);
+    }
+
+    private Mono<CardRow> findOwnCard(Long id, String username) {
+        return principalCache.resolveUserId(username)
+                .flatMap(userId -> cardRepository.findByIdAndUserId(id, userId))
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Card not found with id: " + id)));
+    }
+
+    // Поиск важнее фильтра по статусу, как в CardService.getUserCards; разбор цифр - как в CardSearch
+    private CardFilter toFilter(String search, CardStatus status) {
+        if (search == null || search.trim().isEmpty()) {
+            return new CardFilter(null, null, null, status);
+        }
+        String prefix = CardSearchQuery.lastFourPrefix(search);
+        if (prefix != null) {
+            return new CardFilter(prefix + "%", null, null, null);
+        }
+        String digits = CardSearchQuery.cardDigits(search);
+        if (digits == null) {
+            return new CardFilter(null, null, CardSearchQuery.holderNamePattern(search), null);
+        }
+        if (digits.length() > 4) {
+            return new CardFilter(null, cardDataEncryptor.cardNumberHash(digits), null, null);
+        }
+        return new CardFilter(digits.length() == 4 ? digits : "%" + digits + "%", null, null, null);
+    }
+
+    private CursorPageResponse<CardResponse> toCursorPage(List<CardRow> cards, int size) {
+        boolean hasNext = cards.size() > size;
+        List<CardRow> page = hasNext ? cards.subList(0, size) : cards;
+        List<CardResponse> content = page.stream().map(CardRow::toResponse).toList();
+
+        String nextCursor = null;
+        if (hasNext) {
+            CardRow last = page.get(page.size() - 1);
+            nextCursor = new PageCursor(last.createdAt(), last.id()).encode();
+        }
+        return new CursorPageResponse<>(content, content.size(), nextCursor, hasNext);
+    }
+
+    // Реквизиты как в CardFactory.newCard
+    private NewCard newCard(CardCreateRequest request) {
+        String cardNumber = cardDataEncryptor.generateCardNumber();
+        String maskedCard = CardMaskUtil.maskCardNumber(cardNumber);
+        CardType cardType = request.getCardType() != null ? request.getCardType() : CardType.DEBIT;
+        CardStatus status = request.getExpiryDate().isBefore(LocalDate.now()) ? CardStatus.EXPIRED : CardStatus.ACTIVE;
+        return new NewCard(
+                cardDataEncryptor.encrypt(cardNumber),
+                cardDataEncryptor.cardNumberHash(cardNumber),
+                maskedCard,
+                CardMaskUtil.getLastFourDigits(maskedCard),
+                request.getCardHolderName(),
+                request.getExpiryDate(),
+                status,
+                cardDataEncryptor.encrypt(cardDataEncryptor.generateCVV()),
+                cardDataEncryptor.encrypt(cardDataEncryptor.generatePIN()),
+                cardType);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.bankcards.reactive.service;
+
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.util.BoundedCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+// username -> id пользователя, как PrincipalCache: на запрос к users только при промахе кэша
+@Component
+public class ReactivePrincipalCache {
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Value("${user.principal-cache.size:10000}")
+    private int cacheSize;
+
+    @Value("${user.principal-cache.ttl:PT5M}")
+    private Duration cacheTtl;
+
+    private BoundedCache<String, Long> cache;
+
+    @PostConstruct
+    void init() {
+        cache = new BoundedCache<>(cacheSize, cacheTtl);
+    }
+
+    public Mono<Long> resolveUserId(String username) {
+        Long cached = cache.get(username);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return databaseClient.sql("SELECT id FROM users WHERE username = :username")
+                .bind("username", username)
+                .map((row, metadata) -> row.get("id", Long.class))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("User not found: " + username)))
+                .doOnNext(userId -> cache.put(username, userId));
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.bankcards.reactive.service;
+
+import com.example.bankcards.dto.BatchTransferItemResult;
+import com.example.bankcards.dto.BatchTransferResponse;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.dto.TransferResponse;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.exception.BadRequestException;
+import com.example.bankcards.exception.ConflictException;
+import com.example.bankcards.reactive.repository.CardRow;
+import com.example.bankcards.reactive.repository.ReactiveCardRepository;
+import com.example.bankcards.reactive.repository.ReactiveCardRepository.TransferredCard;
+import com.example.bankcards.reactive.repository.ReactiveTransferRepository;
+import com.example.bankcards.service.TransferFailureReason;
+import com.example.bankcards.util.BoundedCache;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Переводы с той же семантикой, что TransferService в режиме CONDITIONAL_UPDATE: один условный UPDATE
+// на обе карты, журнал и ключ идемпотентности в той же транзакции, те же причины отказа
+@Service
+public class ReactiveTransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveTransferService.class);
+
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
+    @Autowired
+    private ReactiveCardRepository cardRepository;
+
+    @Autowired
+    private ReactiveTransferRepository transferRepository;
+
+    @Autowired
+    private ReactivePrincipalCache principalCache;
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
+    @Value("${transfer.batch.chunk-size:500}")
+    private int batchChunkSize;
+
+    @Value("${transfer.idempotency.cache-size:100000}")
+    private int cacheSize;
+
+    @Value("${transfer.idempotency.cache-ttl:PT10M}")
+    private Duration cacheTtl;
+
+    private BoundedCache<String, TransferResponse> idempotencyCache;
+
+    @PostConstruct
+    void init() {
+        idempotencyCache = new BoundedCache<>(cacheSize, cacheTtl);
+    }
+
+    public Mono<TransferResponse> transferBetweenOwnCards(TransferRequest request, String username, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return principalCache.resolveUserId(username)
+                    .flatMap(userId -> transactionalOperator.transactional(doConditionalTransfer(request, userId)));
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return Mono.error(new BadRequestException(
+                    "Idempotency-Key must be 1-" + MAX_IDEMPOTENCY_KEY_LENGTH + " characters long"));
+        }
+
+        // Ключ занимается первым, до движения денег, как в TransferService: параллельный запрос с тем же
+        // ключом ждёт на вставке и после коммита первого получает сохранённый перевод
+        Mono<TransferResponse> execute = principalCache.resolveUserId(username)
+                .flatMap(userId -> transactionalOperator.transactional(transferRepository.claim(username, idempotencyKey)
+                        .flatMap(claimed -> claimed
+                                ? doConditionalTransfer(request, userId)
+                                        .flatMap(response -> transferRepository.complete(
+                                                        username, idempotencyKey, response.getTransferId())
+                                                .thenReturn(new Attempt(response, false)))
+                                : findStoredResponse(username, idempotencyKey)
+                                        .switchIfEmpty(Mono.error(() -> new ConflictException(
+                                                "Transfer with this Idempotency-Key is already in progress")))
+                                        .map(stored -> new Attempt(stored, true)))))
+                .map(attempt -> attempt.replayed() ? replay(attempt.response(), request) : attempt.response())
+                .doOnNext(response -> idempotencyCache.put(cacheKey(username, idempotencyKey), response));
+
+        return findStoredResponse(username, idempotencyKey)
+                .map(stored -> replay(stored, request))
+                .switchIfEmpty(execute);
+    }
+
+    // Пакетный перевод: валидация без БД, затем чанки по chunkSize переводов, каждый в своей транзакции.
+    // Ошибка отдельного перевода не прерывает пакет и попадает в результат по его индексу
+    public Mono<BatchTransferResponse> transferBatch(List<TransferRequest> requests, String username) {
+        BatchTransferItemResult[] results = new BatchTransferItemResult[requests.size()];
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            if (request.getFromCardId().equals(request.getToCardId())) {
+                results[i] = failed(i, TransferFailureReason.SAME_CARD);
+            } else if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+                results[i] = failed(i, TransferFailureReason.INVALID_AMOUNT);
+            } else {
+                pending.add(i);
+            }
+        }
+
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < pending.size(); from += batchChunkSize) {
+            chunks.add(pending.subList(from, Math.min(from + batchChunkSize, pending.size())));
+        }
+
+        return principalCache.resolveUserId(username)
+                .flatMapMany(userId -> Flux.fromIterable(chunks)
+                        // Чанки по очереди: иначе они ждали бы блокировок одних и тех же карт друг у друга
+                        .concatMap(chunk -> transactionalOperator.transactional(applyChunk(chunk, requests, userId))
+                                // Чанк откатился целиком: ни один перевод из него не применён.
+                                // Текст исключения остаётся в логе, клиент получает только причину
+                                .onErrorResume(e -> {
+                                    log.error("Batch transfer chunk of {} transfers rolled back", chunk.size(), e);
+                                    return Mono.just(chunk.stream()
+                                            .map(index -> failed(index, TransferFailureReason.CHUNK_ROLLED_BACK))
+                                            .toList());
+                                })))
+                .doOnNext(chunkResults -> chunkResults.forEach(result -> results[result.getIndex()] = result))
+                .then(Mono.fromSupplier(() -> {
+                    int succeeded = 0;
+                    for (BatchTransferItemResult result : results) {
+                        if ("SUCCESS".equals(result.getStatus())) {
+                            succeeded++;
+                        }
+                    }
+                    return new BatchTransferResponse(results.length, succeeded, results.length - succeeded,
+                            Arrays.asList(results));
+                }));
+    }
+
+    private Mono<List<BatchTransferItemResult>> applyChunk(List<Integer> chunk, List<TransferRequest> requests, Long userId) {
+        // Все карты чанка одним запросом, с блокировкой в порядке id
+        Set<Long> cardIds = new TreeSet<>();
+        for (int index : chunk) {
+            cardIds.add(requests.get(index).getFromCardId());
+            cardIds.add(requests.get(index).getToCardId());
+        }
+
+        return cardRepository.findAllByUserIdAndIdInForUpdate(userId, cardIds)
+                .collectMap(CardRow::id, BatchCard::new)
+                .flatMap(cards -> {
+                    // Переводы применяются к картам в памяти по порядку, затем балансы и журнал пишутся в БД
+                    List<BatchTransferItemResult> chunkResults = new ArrayList<>(chunk.size());
+                    List<Integer> applied = new ArrayList<>();
+                    for (int index : chunk) {
+                        TransferRequest request = requests.get(index);
+                        BatchCard fromCard = cards.get(request.getFromCardId());
+                        BatchCard toCard = cards.get(request.getToCardId());
+
+                        TransferFailureReason failure;
+                        if (fromCard == null) {
+                            failure = TransferFailureReason.FROM_CARD_NOT_FOUND;
+                        } else if (toCard == null) {
+                            failure = TransferFailureReason.TO_CARD_NOT_FOUND;
+                        } else {
+                            failure = checkCards(fromCard.row, fromCard.balance, toCard.row, request.getAmount());
+                        }
+                        if (failure != null) {
+                            chunkResults.add(failed(index, failure));
+                            continue;
+                        }
+
+                        fromCard.balance = fromCard.balance.subtract(request.getAmount());
+                        toCard.balance = toCard.balance.add(request.getAmount());
+                        fromCard.changed = true;
+                        toCard.changed = true;
+                        applied.add(index);
+                    }
+
+                    Map<Integer, TransferResponse> transfers = new HashMap<>();
+                    return Flux.fromIterable(cards.values())
+                            .filter(card -> card.changed)
+                            .concatMap(card -> cardRepository.updateBalance(card.row.id(), card.balance))
+                            .thenMany(Flux.fromIterable(applied)
+                                    .concatMap(index -> {
+                                        TransferRequest request = requests.get(index);
+                                        return transferRepository.record(userId,
+                                                        request.getFromCardId(), cards.get(request.getFromCardId()).row.maskedCard(),
+                                                        request.getToCardId(), cards.get(request.getToCardId()).row.maskedCard(),
+                                                        request.getAmount())
+                                                .doOnNext(transfer -> transfers.put(index, transfer));
+                                    }))
+                            .then(Mono.fromSupplier(() -> {
+                                for (int index : applied) {
+                                    chunkResults.add(new BatchTransferItemResult(index, "SUCCESS", transfers.get(index), null, null));
+                                }
+                                return chunkResults;
+                            }));
+                });
+    }
+
+    private Mono<TransferResponse> doConditionalTransfer(TransferRequest request, Long userId) {
+        if (request.getFromCardId().equals(request.getToCardId())) {
+            return Mono.error(TransferFailureReason.SAME_CARD.toException());
+        }
+        if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return Mono.error(TransferFailureReason.INVALID_AMOUNT.toException());
+        }
+
+        // Все проверки делает сам UPDATE, карты заранее не читаем
+        return cardRepository.applyTransfer(request.getFromCardId(), request.getToCardId(), userId, request.getAmount())
+                .collectList()
+                .flatMap(updated -> {
+                    if (updated.size() < 2) {
+                        // Ошибка откатывает транзакцию, в том числе частично применённое изменение одной карты
+                        return diagnoseFailure(request, userId)
+                                .flatMap(failure -> Mono.<TransferResponse>error(failure.toException()));
+                    }
+                    String fromMasked = null;
+                    String toMasked = null;
+                    for (TransferredCard card : updated) {
+                        if (card.id().equals(request.getFromCardId())) {
+                            fromMasked = card.maskedCard();
+                        } else {
+                            toMasked = card.maskedCard();
+                        }
+                    }
+                    return transferRepository.record(userId, request.getFromCardId(), fromMasked,
+                            request.getToCardId(), toMasked, request.getAmount());
+                });
+    }
+
+    // Вызывается только на неуспешном пути, чтобы вернуть клиенту конкретную причину отказа
+    private Mono<TransferFailureReason> diagnoseFailure(TransferRequest request, Long userId) {
+        return cardRepository.findByIdAndUserId(request.getFromCardId(), userId)
+                .flatMap(fromCard -> cardRepository.findByIdAndUserId(request.getToCardId(), userId)
+                        .map(toCard -> {
+                            TransferFailureReason failure = checkCards(fromCard, fromCard.balance(), toCard, request.getAmount());
+                            // Карты в порядке: значит их состояние поменялось между UPDATE и проверкой
+                            return failure != null ? failure : TransferFailureReason.CONCURRENT_MODIFICATION;
+                        })
+                        .defaultIfEmpty(TransferFailureReason.TO_CARD_NOT_FOUND))
+                .defaultIfEmpty(TransferFailureReason.FROM_CARD_NOT_FOUND);
+    }
+
+    private TransferFailureReason checkCards(CardRow fromCard, BigDecimal fromBalance, CardRow toCard, BigDecimal amount) {
+        if (fromCard.status() != CardStatus.ACTIVE || fromCard.isExpired()) {
+            return TransferFailureReason.FROM_CARD_INACTIVE;
+        }
+        if (toCard.status() != CardStatus.ACTIVE || toCard.isExpired()) {
+            return TransferFailureReason.TO_CARD_INACTIVE;
+        }
+        if (fromBalance.compareTo(amount) < 0) {
+            return TransferFailureReason.INSUFFICIENT_BALANCE;
+        }
+        return null;
+    }
+
+    private Mono<TransferResponse> findStoredResponse(String username, String idempotencyKey) {
+        TransferResponse cached = idempotencyCache.get(cacheKey(username, idempotencyKey));
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return transferRepository.findTransferId(username, idempotencyKey)
+                .flatMap(transferRepository::findById)
+                .doOnNext(stored -> idempotencyCache.put(cacheKey(username, idempotencyKey), stored));
+    }
+
+    // Повтор с тем же ключом, но другим телом запроса - ошибка клиента, а не повтор
+    private TransferResponse replay(TransferResponse stored, TransferRequest request) {
+        if (!stored.getFromCardId().equals(request.getFromCardId())
+                || !stored.getToCardId().equals(request.getToCardId())
+                || stored.getAmount().compareTo(request.getAmount()) != 0) {
+            throw new BadRequestException("Idempotency-Key has already been used for a different transfer");
+        }
+        return stored;
+    }
+
+    private BatchTransferItemResult failed(int index, TransferFailureReason reason) {
+        return new BatchTransferItemResult(index, "FAILED", null, reason.name(), reason.getMessage());
+    }
+
+    private String cacheKey(String username, String key) {
+        return username + '\n' + key;
+    }
+
+    // Результат попытки перевода: новый перевод или сохранённый по ключу идемпотентности
+    private record Attempt(TransferResponse response, boolean replayed) {
+    }
+
+    // Карта пакета с балансом, изменённым переводами чанка в памяти
+    private static final class BatchCard {
+        private final CardRow row;
+        private BigDecimal balance;
+        private boolean changed;
+
+        BatchCard(CardRow row) {
+            this.row = row;
+            this.balance = row.balance();
+        }
+    }
+}
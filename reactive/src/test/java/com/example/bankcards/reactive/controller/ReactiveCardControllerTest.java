@@ -0,0 +1,110 @@
+package com.example.bankcards.reactive.controller;
+
+import com.example.bankcards.dto.CardCreateRequest;
+import com.example.bankcards.dto.CardResponse;
+import com.example.bankcards.dto.CursorPageResponse;
+import com.example.bankcards.dto.PageResponse;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.reactive.service.ReactiveCardService;
+import com.example.bankcards.security.JwtClaims;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCardControllerTest {
+
+    private final JwtClaims claims = new JwtClaims("user", "USER", Instant.now(), Instant.now().plusSeconds(60));
+
+    @Mock
+    private ReactiveCardService cardService;
+
+    @InjectMocks
+    private ReactiveCardController cardController;
+
+    @Test
+    void createCard_shouldReturn201AndBody() {
+        CardCreateRequest request = mock(CardCreateRequest.class);
+        CardResponse cardResponse = mock(CardResponse.class);
+
+        when(cardService.createCard(request, "user")).thenReturn(Mono.just(cardResponse));
+
+        ResponseEntity<CardResponse> responseEntity = cardController.createCard(request, claims).block();
+
+        assertNotNull(responseEntity);
+        assertEquals(HttpStatus.CREATED, responseEntity.getStatusCode());
+        assertSame(cardResponse, responseEntity.getBody());
+    }
+
+    @Test
+    void getCardById_whenNotFound_shouldPropagateError() {
+        when(cardService.getCardById(1L, "user"))
+                .thenReturn(Mono.error(new ResourceNotFoundException("Card not found with id: 1")));
+
+        assertThrows(ResourceNotFoundException.class, () -> cardController.getCardById(1L, claims).block());
+    }
+
+    @Test
+    void getUserCards_shouldPassFiltersToService() {
+        PageResponse<CardResponse> page = new PageResponse<>(List.of(), 0, 10, 0, 0, true);
+
+        when(cardService.getUserCards("user", 0, 10, "1234", CardStatus.ACTIVE)).thenReturn(Mono.just(page));
+
+        ResponseEntity<PageResponse<CardResponse>> responseEntity =
+                cardController.getUserCards(0, 10, "1234", CardStatus.ACTIVE, claims).block();
+
+        assertNotNull(responseEntity);
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertSame(page, responseEntity.getBody());
+    }
+
+    @Test
+    void getUserCardsByCursor_shouldReturnPage() {
+        CursorPageResponse<CardResponse> page = new CursorPageResponse<>(List.of(), 0, null, false);
+
+        when(cardService.getUserCardsByCursor("user", "", 10, null)).thenReturn(Mono.just(page));
+
+        ResponseEntity<CursorPageResponse<CardResponse>> responseEntity =
+                cardController.getUserCardsByCursor("", 10, null, claims).block();
+
+        assertNotNull(responseEntity);
+        assertSame(page, responseEntity.getBody());
+    }
+
+    @Test
+    void blockCard_shouldReturn200AndBody() {
+        CardResponse cardResponse = mock(CardResponse.class);
+
+        when(cardService.blockCard(1L, "user")).thenReturn(Mono.just(cardResponse));
+
+        ResponseEntity<CardResponse> responseEntity = cardController.blockCard(1L, claims).block();
+
+        assertNotNull(responseEntity);
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertSame(cardResponse, responseEntity.getBody());
+    }
+
+    @Test
+    void activateCard_shouldReturn200AndBody() {
+        CardResponse cardResponse = mock(CardResponse.class);
+
+        when(cardService.activateCard(1L, "user")).thenReturn(Mono.just(cardResponse));
+
+        ResponseEntity<CardResponse> responseEntity = cardController.activateCard(1L, claims).block();
+
+        assertNotNull(responseEntity);
+        assertSame(cardResponse, responseEntity.getBody());
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.bankcards.reactive.controller;
+
+import com.example.bankcards.dto.BatchTransferRequest;
+import com.example.bankcards.dto.BatchTransferResponse;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.dto.TransferResponse;
+import com.example.bankcards.exception.BadRequestException;
+import com.example.bankcards.reactive.service.ReactiveTransferService;
+import com.example.bankcards.security.JwtClaims;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveTransferControllerTest {
+
+    private final JwtClaims claims = new JwtClaims("user", "USER", Instant.now(), Instant.now().plusSeconds(60));
+
+    @Mock
+    private ReactiveTransferService transferService;
+
+    @InjectMocks
+    private ReactiveTransferController transferController;
+
+    @Test
+    void transfer_shouldReturn201AndBody() {
+        TransferRequest request = mock(TransferRequest.class);
+        TransferResponse transferResponse = mock(TransferResponse.class);
+
+        when(transferService.transferBetweenOwnCards(request, "user", "key-1"))
+                .thenReturn(Mono.just(transferResponse));
+
+        ResponseEntity<TransferResponse> responseEntity =
+                transferController.transfer(request, "key-1", claims).block();
+
+        assertNotNull(responseEntity);
+        assertEquals(HttpStatus.CREATED, responseEntity.getStatusCode());
+        assertSame(transferResponse, responseEntity.getBody());
+        verify(transferService).transferBetweenOwnCards(request, "user", "key-1");
+    }
+
+    @Test
+    void transfer_whenBadRequest_shouldPropagateError() {
+        TransferRequest request = mock(TransferRequest.class);
+
+        when(transferService.transferBetweenOwnCards(request, "user", null))
+                .thenReturn(Mono.error(new BadRequestException("Insufficient balance")));
+
+        assertThrows(BadRequestException.class,
+                () -> transferController.transfer(request, null, claims).block());
+    }
+
+    @Test
+    void transferBatch_shouldReturn200AndBody() {
+        TransferRequest item = mock(TransferRequest.class);
+        BatchTransferRequest request = new BatchTransferRequest(List.of(item));
+        BatchTransferResponse batchResponse = mock(BatchTransferResponse.class);
+
+        when(transferService.transferBatch(List.of(item), "user")).thenReturn(Mono.just(batchResponse));
+
+        ResponseEntity<BatchTransferResponse> responseEntity =
+                transferController.transferBatch(request, claims).block();
+
+        assertNotNull(responseEntity);
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertSame(batchResponse, responseEntity.getBody());
+    }
+}
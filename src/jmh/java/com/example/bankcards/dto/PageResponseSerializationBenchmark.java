@@ -0,0 +1,71 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.CardType;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Сериализация ответа GET /api/cards тем же ObjectMapper, что собирает Spring Boot (модули java.time и т.д.).
+// Размер страницы: -Djmh.args="-p pageSize=10,100"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageResponseSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int pageSize;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private PageResponse<CardResponse> page;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        // Writer и reader под конкретный тип, как их кэширует конвертер Spring MVC
+        writer = objectMapper.writerFor(new TypeReference<PageResponse<CardResponse>>() { });
+        reader = objectMapper.readerFor(new TypeReference<PageResponse<CardResponse>>() { });
+
+        List<CardResponse> content = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            content.add(new CardResponse((long) i, "**** **** **** " + (1000 + i % 9000), "IVAN PETROV",
+                    new BigDecimal("12345.67"), LocalDate.of(2030, 12, 31), CardStatus.ACTIVE, CardType.DEBIT, i == 0));
+        }
+        page = new PageResponse<>(content, 0, pageSize, 10_000, 10_000 / pageSize, false);
+        json = writer.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return writer.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public PageResponse<CardResponse> deserialize() throws Exception {
+        return reader.readValue(json);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.util.EncryptionUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Старый путь EncryptionUtil (новый SecretKeySpec, Cipher и SecureRandom на каждый вызов, AES/ECB)
+// против CardDataEncryptor. Ключ EncryptionUtil в коде имеет недопустимую для AES длину,
+// поэтому legacy-методы повторяют его код с корректным 256-битным ключом.
+// Многопоточный прогон: mvn -Pjmh test-compile exec:exec -Djmh.include=CardEncryptionBenchmark -Djmh.args="-t 8"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardEncryptionBenchmark {
+
+    private static final byte[] KEY = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+    private static final String CARD_NUMBER = "4276123456789012";
+
+    private CardDataEncryptor encryptor;
+    private String gcmCiphertext;
+    private String legacyCiphertext;
+
+    @Setup
+    public void setUp() {
+        encryptor = new CardDataEncryptor();
+        ReflectionTestUtils.setField(encryptor, "encodedKey", Base64.getEncoder().encodeToString(KEY));
+        ReflectionTestUtils.setField(encryptor, "encodedIndexKey", Base64.getEncoder().encodeToString(KEY));
+        encryptor.init();
+        // Как в приложении: шифрование активным ключом данных (формат v2)
+        encryptor.installDataKeys(Map.of(1, encryptor.generateDataKey()), 1);
+        gcmCiphertext = encryptor.encrypt(CARD_NUMBER);
+        legacyCiphertext = legacyEncrypt(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public String legacyEncryptOp() {
+        return legacyEncrypt(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public String legacyDecryptOp() {
+        return legacyDecrypt(legacyCiphertext);
+    }
+
+    @Benchmark
+    public String gcmEncrypt() {
+        return encryptor.encrypt(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public String gcmDecrypt() {
+        return encryptor.decrypt(gcmCiphertext);
+    }
+
+    // Генерация реквизитов без шифрования: EncryptionUtil создаёт SecureRandom на каждый вызов
+    @Benchmark
+    public void legacyGenerate(Blackhole blackhole) {
+        blackhole.consume(EncryptionUtil.generateCardNumber());
+        blackhole.consume(EncryptionUtil.generateCVV());
+        blackhole.consume(EncryptionUtil.generatePIN());
+    }
+
+    @Benchmark
+    public void gcmGenerate(Blackhole blackhole) {
+        blackhole.consume(encryptor.generateCardNumber());
+        blackhole.consume(encryptor.generateCVV());
+        blackhole.consume(encryptor.generatePIN());
+    }
+
+    // Реквизиты одной карты, как при выпуске: три генерации и три шифрования
+    @Benchmark
+    public void legacyIssueCard(Blackhole blackhole) {
+        SecureRandom numberRandom = new SecureRandom();
+        StringBuilder cardNumber = new StringBuilder();
+        for (int i = 0; i < 16; i++) {
+            cardNumber.append(numberRandom.nextInt(10));
+        }
+        blackhole.consume(legacyEncrypt(cardNumber.toString()));
+        blackhole.consume(legacyEncrypt(String.format("%03d", new SecureRandom().nextInt(1000))));
+        blackhole.consume(legacyEncrypt(String.format("%04d", new SecureRandom().nextInt(10000))));
+    }
+
+    @Benchmark
+    public void gcmIssueCard(Blackhole blackhole) {
+        blackhole.consume(encryptor.encrypt(encryptor.generateCardNumber()));
+        blackhole.consume(encryptor.encrypt(encryptor.generateCVV()));
+        blackhole.consume(encryptor.encrypt(encryptor.generatePIN()));
+    }
+
+    private static String legacyEncrypt(String data) {
+        try {
+            Cipher cipher = Cipher.getInstance("AES");
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(KEY, "AES"));
+            return Base64.getEncoder().encodeToString(cipher.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String legacyDecrypt(String data) {
+        try {
+            Cipher cipher = Cipher.getInstance("AES");
+            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(KEY, "AES"));
+            return new String(cipher.doFinal(Base64.getDecoder().decode(data)), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.bankcards.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Стоимость аутентификации одного запроса:
+// legacyFilterPath - как фильтр работал раньше (три разбора токена, ключ строится на каждый разбор),
+// verifyUncached - один разбор на общем парсере, verifyCached - попадание в кэш проверенных токенов.
+// generate - выпуск токена при логине
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-for-hmac-sha-256-signatures";
+
+    private JwtTokenUtil jwtTokenUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtTokenUtil = new JwtTokenUtil();
+        ReflectionTestUtils.setField(jwtTokenUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtTokenUtil, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtTokenUtil, "cacheSize", 10_000);
+        jwtTokenUtil.init();
+        token = jwtTokenUtil.generateToken("benchmark_user", "USER");
+    }
+
+    @Benchmark
+    public boolean legacyFilterPath() {
+        String username = legacyParse(token).getSubject();
+        // validateToken: ещё раз имя и отдельно срок действия
+        boolean sameUser = legacyParse(token).getSubject().equals(username);
+        Date expiresAt = legacyParse(token).getExpiration();
+        return sameUser && !expiresAt.before(new Date());
+    }
+
+    @Benchmark
+    public JwtClaims verifyUncached() {
+        return jwtTokenUtil.parseClaims(token);
+    }
+
+    @Benchmark
+    public JwtClaims verifyCached() {
+        return jwtTokenUtil.verifyToken(token);
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtTokenUtil.generateToken("benchmark_user", "USER");
+    }
+
+    private static Claims legacyParse(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.bankcards.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Маскирование вызывается на каждую выпущенную карту и при каждом маппинге в CardResponse.
+// Номер в поле, а не константой, чтобы JIT не свернул вызов
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardMaskBenchmark {
+
+    private String cardNumber = "4276123456789012";
+    private String maskedCard = "**** **** **** 9012";
+
+    @Benchmark
+    public String maskCardNumber() {
+        return CardMaskUtil.maskCardNumber(cardNumber);
+    }
+
+    // Уже замаскированный номер возвращается как есть
+    @Benchmark
+    public String maskMaskedCard() {
+        return CardMaskUtil.maskCardNumber(maskedCard);
+    }
+
+    @Benchmark
+    public String lastFourDigits() {
+        return CardMaskUtil.getLastFourDigits(maskedCard);
+    }
+}
@@ -0,0 +1,504 @@
+package com.example.bankcards.loadtest;
+
+import com.example.bankcards.BankRestApp;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Сквозная нагрузка по HTTP на реальные эндпоинты. Поднимает приложение на случайном порту против БД
+ * из application.yml (docker-compose) или встроенного PostgreSQL ({@code -Dbench.embedded=true}, без сети
+ * и Docker), создаёт N пользователей по M карт и подаёт смесь запросов: логин, список карт, карта по id,
+ * блокировка/активация и перевод.
+ * <p>
+ * Открытая модель: запросы отправляются с заданной частотой ({@code bench.rate}, пуассоновский или
+ * равномерный поток) независимо от того, ответил ли сервер на предыдущие. Латентность считается от
+ * запланированного момента отправки, поэтому очередь на стороне клиента или сервера попадает в замер,
+ * а не прячется (coordinated omission). По каждому эндпоинту печатаются пропускная способность, доля ошибок
+ * и перцентили HdrHistogram; с {@code -Dbench.hgrm-dir=...} распределения пишутся в файлы .hgrm.
+ * <p>
+ * Запуск: {@code mvn -Ploadtest test-compile exec:java -Dloadtest.main=com.example.bankcards.loadtest.EndToEndLoadTest
+ * -Dbench.embedded=true -Dbench.users=200 -Dbench.cards-per-user=5 -Dbench.rate=500 -Dbench.seconds=60}
+ */
+public class EndToEndLoadTest {
+
+    private static final String PASSWORD = "load-password";
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    // Операции смеси; блокировка/активация одной карты - пара запросов подряд
+    enum Operation {
+        LOGIN, LIST, GET, TOGGLE, TRANSFER
+    }
+
+    enum Endpoint {
+        LOGIN("POST /api/auth/login"),
+        LIST("GET /api/cards"),
+        GET("GET /api/cards/{id}"),
+        BLOCK("POST /api/cards/{id}/block"),
+        ACTIVATE("POST /api/cards/{id}/activate"),
+        TRANSFER("POST /api/transfers");
+
+        private final String label;
+
+        Endpoint(String label) {
+            this.label = label;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("bench.users", 100);
+        int cardsPerUser = Integer.getInteger("bench.cards-per-user", 5);
+        double rate = Double.parseDouble(System.getProperty("bench.rate", "200"));
+        int seconds = Integer.getInteger("bench.seconds", 60);
+        int warmupSeconds = Integer.getInteger("bench.warmup-seconds", 10);
+        boolean poisson = !"constant".equals(System.getProperty("bench.arrival", "poisson"));
+        int maxInFlight = Integer.getInteger("bench.max-in-flight", 5000);
+        Map<Operation, Integer> mix = parseMix(System.getProperty("bench.mix", "login:2,list:40,get:30,toggle:8,transfer:20"));
+        String hgrmDir = System.getProperty("bench.hgrm-dir");
+        // Последняя карта пользователя только блокируется и активируется, остальные участвуют в переводах
+        if (cardsPerUser < 3) {
+            throw new IllegalArgumentException("bench.cards-per-user must be at least 3");
+        }
+        // Телефон пользователя - 7, номер прогона и порядковый номер, всего 11 цифр
+        if (users < 1 || users > 99_999) {
+            throw new IllegalArgumentException("bench.users must be between 1 and 99999");
+        }
+
+        try (EmbeddedPostgres postgres = Boolean.getBoolean("bench.embedded") ? EmbeddedPostgres.builder().start() : null;
+             ConfigurableApplicationContext context = new SpringApplicationBuilder(BankRestApp.class)
+                     // Тестовые секреты из application-dev.yml
+                     .profiles("dev")
+                     .run(appArgs(postgres))) {
+
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            String runId = Long.toString(System.currentTimeMillis() % 100_000);
+
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient http = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .executor(clients)
+                        .build();
+
+                long seedStarted = System.nanoTime();
+                List<SeededUser> seeded = seed(jdbc, context.getBean(PasswordEncoder.class), runId, users, cardsPerUser);
+                login(http, clients, baseUrl, seeded);
+                System.out.printf("Seeded %d users x %d cards and logged them in in %.1f s%n",
+                        users, cardsPerUser, (System.nanoTime() - seedStarted) / 1e9);
+
+                LoadGenerator generator = new LoadGenerator(http, clients, baseUrl, seeded, mix, rate, poisson, maxInFlight);
+                if (warmupSeconds > 0) {
+                    generator.run(warmupSeconds);
+                }
+                PhaseResult result = generator.run(seconds);
+                report(result, rate, hgrmDir);
+            } finally {
+                cleanup(jdbc, runId);
+            }
+        }
+    }
+
+    private static String[] appArgs(EmbeddedPostgres postgres) {
+        List<String> appArgs = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.level.com.example.bankcards=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "--logging.level.org.springframework.security=WARN"));
+        String profiles = System.getProperty("bench.profiles");
+        if (profiles != null && !profiles.isBlank()) {
+            appArgs.add("--spring.profiles.active=" + profiles);
+        }
+        String pool = System.getProperty("bench.pool");
+        if (pool != null) {
+            appArgs.add("--spring.datasource.hikari.maximum-pool-size=" + pool);
+        }
+        if (postgres != null) {
+            // Схему создаёт Liquibase приложения, как на обычной БД
+            appArgs.add("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"));
+            appArgs.add("--spring.datasource.username=postgres");
+            appArgs.add("--spring.datasource.password=");
+        }
+        return appArgs.toArray(new String[0]);
+    }
+
+    // Пользователи и карты вставляются пачками напрямую в БД: выпуск через API упирался бы в шифрование
+    private static List<SeededUser> seed(JdbcTemplate jdbc, PasswordEncoder passwordEncoder, String runId,
+                                         int users, int cardsPerUser) {
+        // Один хеш на всех: BCrypt на каждого пользователя занял бы минуты
+        String passwordHash = passwordEncoder.encode(PASSWORD);
+        List<Object[]> userRows = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            userRows.add(new Object[]{String.format("7%05d%05d", Long.parseLong(runId), i), "load_" + runId + "_" + i, passwordHash});
+        }
+        jdbc.batchUpdate("INSERT INTO users (first_name, last_name, phone_number, username, password, role, created_at, updated_at) "
+                + "VALUES ('Load', 'User', ?, ?, ?, 'USER', now(), now())", userRows);
+
+        Map<Long, String> usernames = new LinkedHashMap<>();
+        jdbc.query("SELECT id, username FROM users WHERE username LIKE ? ESCAPE '\\' ORDER BY id",
+                row -> {
+                    usernames.put(row.getLong("id"), row.getString("username"));
+                },
+                userPattern(runId));
+
+        List<Object[]> cardRows = new ArrayList<>(users * cardsPerUser);
+        for (Long userId : usernames.keySet()) {
+            for (int i = 0; i < cardsPerUser; i++) {
+                String marker = "load-" + runId + "-" + UUID.randomUUID();
+                String lastFour = String.format("%04d", ThreadLocalRandom.current().nextInt(10_000));
+                cardRows.add(new Object[]{marker, marker, "**** **** **** " + lastFour, lastFour, userId});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO cards (card_number, card_number_hash, masked_card, last_four, card_holder_name, balance, "
+                + "expiry_date, status, ccv, pin_code, card_type, is_default, user_id, created_at, update_at, version) "
+                + "VALUES (?, ?, ?, ?, 'LOAD USER', 1000000, current_date + 365, 'ACTIVE', '-', '-', 'DEBIT', false, ?, "
+                + "now(), now(), 0)", cardRows);
+
+        Map<Long, List<Long>> cardsByUser = new LinkedHashMap<>();
+        jdbc.query("SELECT c.id, c.user_id FROM cards c JOIN users u ON u.id = c.user_id "
+                        + "WHERE u.username LIKE ? ESCAPE '\\' ORDER BY c.id",
+                row -> {
+                    cardsByUser.computeIfAbsent(row.getLong("user_id"), id -> new ArrayList<>()).add(row.getLong("id"));
+                },
+                userPattern(runId));
+
+        List<SeededUser> seeded = new ArrayList<>(users);
+        for (Map.Entry<Long, String> user : usernames.entrySet()) {
+            List<Long> cards = cardsByUser.get(user.getKey());
+            long[] transferCards = cards.subList(0, cards.size() - 1).stream().mapToLong(Long::longValue).toArray();
+            seeded.add(new SeededUser(user.getValue(), transferCards, cards.get(cards.size() - 1)));
+        }
+        return seeded;
+    }
+
+    private static void login(HttpClient http, ExecutorService clients, String baseUrl, List<SeededUser> users)
+            throws Exception {
+        List<Future<?>> logins = new ArrayList<>(users.size());
+        for (SeededUser user : users) {
+            logins.add(clients.submit(() -> {
+                HttpResponse<String> response = http.send(loginRequest(baseUrl, user.username),
+                        HttpResponse.BodyHandlers.ofString());
+                Matcher matcher = TOKEN.matcher(response.body());
+                if (response.statusCode() != 200 || !matcher.find()) {
+                    throw new IllegalStateException("Login failed: " + response.statusCode() + " " + response.body());
+                }
+                user.token = matcher.group(1);
+                return null;
+            }));
+        }
+        for (Future<?> login : logins) {
+            login.get();
+        }
+    }
+
+    private static void cleanup(JdbcTemplate jdbc, String runId) {
+        String users = "SELECT id FROM users WHERE username LIKE ? ESCAPE '\\'";
+        String pattern = userPattern(runId);
+        jdbc.update("DELETE FROM ledger_entries WHERE transfer_id IN (SELECT id FROM transfers WHERE user_id IN (" + users + "))", pattern);
+        jdbc.update("DELETE FROM transfers WHERE user_id IN (" + users + ")", pattern);
+        jdbc.update("DELETE FROM cards WHERE user_id IN (" + users + ")", pattern);
+        jdbc.update("DELETE FROM users WHERE username LIKE ? ESCAPE '\\'", pattern);
+    }
+
+    private static String userPattern(String runId) {
+        return ("load_" + runId + "_").replace("_", "\\_") + "%";
+    }
+
+    private static HttpRequest loginRequest(String baseUrl, String username) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .build();
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("bench.mix must have a positive total weight");
+        }
+        return weights;
+    }
+
+    private static void report(PhaseResult result, double rate, String hgrmDir) throws Exception {
+        System.out.println();
+        System.out.printf("target=%.1f req/s issued=%d dropped(max-in-flight)=%d elapsed=%.1f s%n",
+                rate, result.issued, result.dropped, result.elapsedSeconds);
+        System.out.printf("%-28s %9s %9s %8s %10s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "err%", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        if (hgrmDir != null) {
+            new File(hgrmDir).mkdirs();
+        }
+
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        for (Map.Entry<Endpoint, EndpointStats> entry : result.stats.entrySet()) {
+            Histogram histogram = entry.getValue().histogram;
+            long errors = entry.getValue().errors.sum();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            total.add(histogram);
+            totalErrors += errors;
+            printRow(entry.getKey().label, histogram, errors, result.elapsedSeconds);
+            if (!entry.getValue().errorKinds.isEmpty()) {
+                System.out.println("    errors by kind: " + entry.getValue().errorKinds);
+            }
+            if (hgrmDir != null) {
+                writeHgrm(new File(hgrmDir, entry.getKey().name().toLowerCase() + ".hgrm"), histogram);
+            }
+        }
+        printRow("total", total, totalErrors, result.elapsedSeconds);
+        if (hgrmDir != null) {
+            writeHgrm(new File(hgrmDir, "total.hgrm"), total);
+        }
+    }
+
+    private static void printRow(String label, Histogram histogram, long errors, double elapsedSeconds) {
+        long count = histogram.getTotalCount();
+        System.out.printf("%-28s %9d %9d %7.2f%% %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                label, count, errors, 100.0 * errors / count, count / elapsedSeconds,
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    // Формат HdrHistogram Plotter, значения в миллисекундах
+    private static void writeHgrm(File file, Histogram histogram) throws Exception {
+        try (PrintStream out = new PrintStream(file, "UTF-8")) {
+            histogram.outputPercentileDistribution(out, 1_000_000.0);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static class SeededUser {
+        private final String username;
+        private final long[] transferCards;
+        private final long toggleCard;
+        // Одна операция блокировки/активации на карту одновременно, иначе вторая получит 400
+        private final AtomicBoolean toggleBusy = new AtomicBoolean();
+        private volatile String token;
+
+        SeededUser(String username, long[] transferCards, long toggleCard) {
+            this.username = username;
+            this.transferCards = transferCards;
+            this.toggleCard = toggleCard;
+        }
+    }
+
+    private static class EndpointStats {
+        private final Recorder recorder = new Recorder(3);
+        private final LongAdder errors = new LongAdder();
+        private final Map<String, LongAdder> errorKinds = new ConcurrentHashMap<>();
+        private Histogram histogram;
+    }
+
+    private record PhaseResult(Map<Endpoint, EndpointStats> stats, long issued, long dropped, double elapsedSeconds) {
+    }
+
+    private static class LoadGenerator {
+        private final HttpClient http;
+        private final ExecutorService clients;
+        private final String baseUrl;
+        private final List<SeededUser> users;
+        private final Operation[] operations;
+        private final int[] cumulativeWeights;
+        private final double rate;
+        private final boolean poisson;
+        private final int maxInFlight;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        LoadGenerator(HttpClient http, ExecutorService clients, String baseUrl, List<SeededUser> users,
+                      Map<Operation, Integer> mix, double rate, boolean poisson, int maxInFlight) {
+            this.http = http;
+            this.clients = clients;
+            this.baseUrl = baseUrl;
+            this.users = users;
+            this.rate = rate;
+            this.poisson = poisson;
+            this.maxInFlight = maxInFlight;
+            this.operations = mix.keySet().toArray(new Operation[0]);
+            this.cumulativeWeights = new int[operations.length];
+            int sum = 0;
+            for (int i = 0; i < operations.length; i++) {
+                sum += mix.get(operations[i]);
+                cumulativeWeights[i] = sum;
+            }
+        }
+
+        // Один поток планирует отправки по расписанию, каждый запрос выполняется на своём виртуальном потоке
+        PhaseResult run(int seconds) throws InterruptedException {
+            Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+            for (Endpoint endpoint : Endpoint.values()) {
+                stats.put(endpoint, new EndpointStats());
+            }
+            long issued = 0;
+            long dropped = 0;
+            long began = System.nanoTime();
+            long end = began + TimeUnit.SECONDS.toNanos(seconds);
+            long next = began;
+            while (next < end) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                long intended = next;
+                next += nextInterval();
+
+                // Клиент не успевает: запрос не отправляется и учитывается отдельно, а не откладывается
+                if (inFlight.incrementAndGet() > maxInFlight) {
+                    inFlight.decrementAndGet();
+                    dropped++;
+                    continue;
+                }
+                issued++;
+                Operation operation = pickOperation();
+                clients.execute(() -> {
+                    try {
+                        execute(operation, intended, stats);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            }
+            // Дожидаемся ответов на уже отправленные запросы
+            long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+                Thread.sleep(10);
+            }
+            double elapsed = (System.nanoTime() - began) / 1e9;
+            for (EndpointStats endpointStats : stats.values()) {
+                endpointStats.histogram = endpointStats.recorder.getIntervalHistogram();
+            }
+            return new PhaseResult(stats, issued, dropped, elapsed);
+        }
+
+        private long nextInterval() {
+            double meanNanos = 1e9 / rate;
+            if (!poisson) {
+                return (long) meanNanos;
+            }
+            // Экспоненциальные интервалы между прибытиями
+            return (long) (-Math.log(1.0 - ThreadLocalRandom.current().nextDouble()) * meanNanos);
+        }
+
+        private Operation pickOperation() {
+            int point = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (point < cumulativeWeights[i]) {
+                    return operations[i];
+                }
+            }
+            return operations[operations.length - 1];
+        }
+
+        private void execute(Operation operation, long intended, Map<Endpoint, EndpointStats> stats) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            SeededUser user = users.get(random.nextInt(users.size()));
+            switch (operation) {
+                case LOGIN -> send(Endpoint.LOGIN, loginRequest(baseUrl, user.username), intended, stats);
+                case LIST -> send(Endpoint.LIST, authorized(user, "/api/cards?page=0&size=20").GET().build(), intended, stats);
+                case GET -> getCard(user, intended, stats);
+                case TOGGLE -> {
+                    if (!user.toggleBusy.compareAndSet(false, true)) {
+                        getCard(user, intended, stats);
+                        return;
+                    }
+                    try {
+                        String card = "/api/cards/" + user.toggleCard;
+                        send(Endpoint.BLOCK, authorized(user, card + "/block").POST(HttpRequest.BodyPublishers.noBody()).build(),
+                                intended, stats);
+                        send(Endpoint.ACTIVATE, authorized(user, card + "/activate").POST(HttpRequest.BodyPublishers.noBody()).build(),
+                                System.nanoTime(), stats);
+                    } finally {
+                        user.toggleBusy.set(false);
+                    }
+                }
+                case TRANSFER -> {
+                    int from = random.nextInt(user.transferCards.length);
+                    int to = (from + 1 + random.nextInt(user.transferCards.length - 1)) % user.transferCards.length;
+                    String body = "{\"fromCardId\":" + user.transferCards[from] + ",\"toCardId\":" + user.transferCards[to]
+                            + ",\"amount\":1.00}";
+                    send(Endpoint.TRANSFER, authorized(user, "/api/transfers")
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build(), intended, stats);
+                }
+            }
+        }
+
+        private void getCard(SeededUser user, long intended, Map<Endpoint, EndpointStats> stats) {
+            long cardId = user.transferCards[ThreadLocalRandom.current().nextInt(user.transferCards.length)];
+            send(Endpoint.GET, authorized(user, "/api/cards/" + cardId).GET().build(), intended, stats);
+        }
+
+        private HttpRequest.Builder authorized(SeededUser user, String path) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Authorization", "Bearer " + user.token)
+                    .timeout(Duration.ofSeconds(30));
+        }
+
+        // Латентность от запланированного момента отправки, а не от фактического
+        private void send(Endpoint endpoint, HttpRequest request, long intended, Map<Endpoint, EndpointStats> stats) {
+            EndpointStats endpointStats = stats.get(endpoint);
+            String errorKind = null;
+            try {
+                HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() / 100 != 2) {
+                    errorKind = "HTTP " + response.statusCode();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                errorKind = e.getClass().getSimpleName();
+            } catch (Exception e) {
+                errorKind = e.getClass().getSimpleName();
+            }
+            endpointStats.recorder.recordValue(Math.max(0, System.nanoTime() - intended));
+            if (errorKind != null) {
+                endpointStats.errors.increment();
+                endpointStats.errorKinds.computeIfAbsent(errorKind, kind -> new LongAdder()).increment();
+            }
+        }
+    }
+}
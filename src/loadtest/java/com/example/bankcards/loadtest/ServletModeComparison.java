@@ -0,0 +1,249 @@
+package com.example.bankcards.loadtest;
+
+import com.example.bankcards.BankRestApp;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Сравнение режимов выполнения запросов: пул платформенных потоков Tomcat и виртуальные потоки
+ * (профиль {@code virtual}). Для каждого режима поднимает приложение на случайном порту против БД
+ * из application.yml (docker-compose) и гоняет по HTTP замкнутую нагрузку с заданным числом
+ * одновременных клиентов: список карт ({@code GET /api/cards}, ожидание JDBC) и каждый N-й запрос -
+ * логин ({@code POST /api/auth/login}, BCrypt). Печатает пропускную способность, p50/p99, ошибки
+ * и пиковое число платформенных потоков JVM.
+ * <p>
+ * Запуск: {@code mvn -Ploadtest test-compile exec:java -Dloadtest.main=com.example.bankcards.loadtest.ServletModeComparison
+ * -Dbench.concurrency=50,200,1000 -Dbench.seconds=20}
+ */
+public class ServletModeComparison {
+
+    private static final String PASSWORD = "bench-password";
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        int seconds = Integer.getInteger("bench.seconds", 20);
+        int pool = Integer.getInteger("bench.pool", 20);
+        int loginEvery = Integer.getInteger("bench.login-every", 20);
+        int cards = Integer.getInteger("bench.cards", 50);
+        int[] levels = Arrays.stream(System.getProperty("bench.concurrency", "50,200,1000").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        String modes = System.getProperty("bench.modes", "platform,virtual");
+
+        List<String> report = new ArrayList<>();
+        for (String mode : modes.split(",")) {
+            report.addAll(run(mode.trim(), levels, seconds, pool, loginEvery, cards));
+        }
+        System.out.println();
+        report.forEach(System.out::println);
+    }
+
+    private static List<String> run(String mode, int[] levels, int seconds, int pool, int loginEvery, int cardCount)
+            throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BankRestApp.class)
+                // Тестовые секреты из application-dev.yml
+                .profiles("virtual".equals(mode) ? new String[]{"dev", "virtual"} : new String[]{"dev"})
+                .run("--server.port=0",
+                        // Одинаковый пул соединений в обоих режимах, различается только модель потоков
+                        "--spring.datasource.hikari.maximum-pool-size=" + pool,
+                        "--spring.datasource.hikari.minimum-idle=" + pool,
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.example.bankcards=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.security=WARN")) {
+
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String baseUrl = "http://localhost:" + port;
+
+            String username = "bench_" + System.currentTimeMillis();
+            Long userId = seedUser(jdbc, context.getBean(PasswordEncoder.class), username);
+            seedCards(jdbc, userId, cardCount);
+
+            // Клиенты на виртуальных потоках, чтобы сама нагрузка не занимала платформенные потоки
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient http = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .executor(clients)
+                        .build();
+                String token = login(http, baseUrl, username);
+
+                // Прогрев JIT и пулов перед замерами
+                measure(http, clients, baseUrl, username, token, Math.min(levels[0], 50), 5, loginEvery);
+
+                List<String> lines = new ArrayList<>();
+                for (int concurrency : levels) {
+                    Result result = measure(http, clients, baseUrl, username, token, concurrency, seconds, loginEvery);
+                    lines.add(String.format(
+                            "%-8s clients=%-5d ok=%d errors=%d throughput=%.1f req/s "
+                                    + "p50=%.2f ms p99=%.2f ms max=%.2f ms platform-threads(peak)=%d",
+                            mode, concurrency, result.ok, result.errors, result.ok / result.elapsedSeconds,
+                            percentile(result.latencies, 0.50), percentile(result.latencies, 0.99),
+                            percentile(result.latencies, 1.0), result.peakPlatformThreads));
+                }
+                return lines;
+            } finally {
+                jdbc.update("DELETE FROM cards WHERE user_id = ?", userId);
+                jdbc.update("DELETE FROM users WHERE id = ?", userId);
+            }
+        }
+    }
+
+    private static Result measure(HttpClient http, ExecutorService clients, String baseUrl, String username,
+                                  String token, int concurrency, int seconds, int loginEvery) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        HttpRequest listCards = HttpRequest.newBuilder(URI.create(baseUrl + "/api/cards?page=0&size=20"))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        HttpRequest login = loginRequest(baseUrl, username);
+
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Future<Worker>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(clients.submit(() -> {
+                Worker worker = new Worker();
+                start.await();
+                worker.run(http, listCards, login, loginEvery, deadline);
+                return worker;
+            }));
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        Worker total = new Worker();
+        for (Future<Worker> future : futures) {
+            total.merge(future.get());
+        }
+        double elapsed = (System.nanoTime() - began) / 1e9;
+
+        long[] latencies = total.latencies();
+        Arrays.sort(latencies);
+        return new Result(total.ok, total.errors, elapsed, latencies, threads.getPeakThreadCount());
+    }
+
+    private static String login(HttpClient http, String baseUrl, String username) throws Exception {
+        HttpResponse<String> response = http.send(loginRequest(baseUrl, username), HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = TOKEN.matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException("Login failed: " + response.statusCode() + " " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    private static HttpRequest loginRequest(String baseUrl, String username) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .build();
+    }
+
+    private static Long seedUser(JdbcTemplate jdbc, PasswordEncoder passwordEncoder, String username) {
+        String phone = String.format("7%010d", System.nanoTime() % 10_000_000_000L);
+        return jdbc.queryForObject(
+                "INSERT INTO users (first_name, last_name, phone_number, username, password, role, created_at, updated_at) "
+                        + "VALUES ('Bench', 'User', ?, ?, ?, 'USER', now(), now()) RETURNING id",
+                Long.class, phone, username, passwordEncoder.encode(PASSWORD));
+    }
+
+    private static void seedCards(JdbcTemplate jdbc, Long userId, int count) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String lastFour = String.format("%04d", i);
+            String marker = "bench-" + UUID.randomUUID();
+            rows.add(new Object[]{marker, marker, "**** **** **** " + lastFour, lastFour, userId});
+        }
+        jdbc.batchUpdate(
+                "INSERT INTO cards (card_number, card_number_hash, masked_card, last_four, card_holder_name, balance, "
+                        + "expiry_date, status, ccv, pin_code, card_type, is_default, user_id, created_at, update_at, version) "
+                        + "VALUES (?, ?, ?, ?, 'BENCH USER', 1000, current_date + 365, 'ACTIVE', '-', '-', 'DEBIT', false, ?, "
+                        + "now(), now(), 0)",
+                rows);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    private record Result(long ok, long errors, double elapsedSeconds, long[] latencies, int peakPlatformThreads) {
+    }
+
+    private static class Worker {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long ok;
+        private long errors;
+
+        void run(HttpClient http, HttpRequest listCards, HttpRequest login, int loginEvery, long deadline) {
+            long iteration = 0;
+            while (System.nanoTime() < deadline) {
+                HttpRequest request = loginEvery > 0 && ++iteration % loginEvery == 0 ? login : listCards;
+                long began = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 200) {
+                        ok++;
+                    } else {
+                        errors++;
+                    }
+                } catch (Exception e) {
+                    errors++;
+                }
+                record(System.nanoTime() - began);
+            }
+        }
+
+        void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+
+        void merge(Worker other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i]);
+            }
+            ok += other.ok;
+            errors += other.errors;
+        }
+
+        long[] latencies() {
+            return Arrays.copyOf(latencies, count);
+        }
+    }
+}
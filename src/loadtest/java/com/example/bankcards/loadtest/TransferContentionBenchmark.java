@@ -0,0 +1,189 @@
+package com.example.bankcards.loadtest;
+
+import com.example.bankcards.BankRestApp;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.exception.ConflictException;
+import com.example.bankcards.service.TransferConcurrencyMode;
+import com.example.bankcards.service.TransferService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Нагрузка на переводы между несколькими "горячими" картами одного пользователя.
+ * Поднимает приложение против БД из application.yml (docker-compose) для каждого режима
+ * {@link TransferConcurrencyMode} и печатает пропускную способность, p50/p99 и число конфликтов.
+ * <p>
+ * Запуск: {@code mvn -Ploadtest test-compile exec:java -Dbench.threads=64 -Dbench.cards=4}
+ */
+public class TransferContentionBenchmark {
+
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    public static void main(String[] args) throws Exception {
+        int threads = Integer.getInteger("bench.threads", 32);
+        int cards = Integer.getInteger("bench.cards", 4);
+        int seconds = Integer.getInteger("bench.seconds", 20);
+        String modes = System.getProperty("bench.modes", "PESSIMISTIC,OPTIMISTIC,CONDITIONAL_UPDATE");
+
+        List<String> report = new ArrayList<>();
+        for (String mode : modes.split(",")) {
+            report.add(run(TransferConcurrencyMode.valueOf(mode.trim()), threads, cards, seconds));
+        }
+        System.out.println();
+        report.forEach(System.out::println);
+    }
+
+    private static String run(TransferConcurrencyMode mode, int threads, int cardCount, int seconds) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BankRestApp.class)
+                // Тестовые секреты из application-dev.yml
+                .profiles("dev")
+                .run("--server.port=0",
+                        "--transfer.concurrency-mode=" + mode,
+                        "--spring.datasource.hikari.maximum-pool-size=" + Math.max(10, threads),
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.example.bankcards=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.security=WARN")) {
+
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            TransferService transferService = context.getBean(TransferService.class);
+
+            String username = "bench_" + System.currentTimeMillis();
+            Long userId = seedUser(jdbc, username);
+            Long[] cardIds = seedCards(jdbc, userId, cardCount);
+
+            try {
+                CountDownLatch start = new CountDownLatch(1);
+                ExecutorService executor = Executors.newFixedThreadPool(threads);
+                List<Future<Worker>> futures = new ArrayList<>();
+                long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+                for (int i = 0; i < threads; i++) {
+                    futures.add(executor.submit(() -> {
+                        Worker worker = new Worker();
+                        start.await();
+                        worker.run(transferService, username, cardIds, deadline);
+                        return worker;
+                    }));
+                }
+
+                long began = System.nanoTime();
+                start.countDown();
+                Worker total = new Worker();
+                for (Future<Worker> future : futures) {
+                    total.merge(future.get());
+                }
+                double elapsed = (System.nanoTime() - began) / 1e9;
+                executor.shutdown();
+
+                BigDecimal sum = jdbc.queryForObject(
+                        "SELECT SUM(balance) FROM cards WHERE user_id = ?", BigDecimal.class, userId);
+                boolean consistent = INITIAL_BALANCE.multiply(BigDecimal.valueOf(cardCount)).compareTo(sum) == 0;
+
+                long[] latencies = total.latencies();
+                Arrays.sort(latencies);
+                return String.format(
+                        "%-11s threads=%d cards=%d ok=%d conflicts=%d errors=%d throughput=%.1f tx/s "
+                                + "p50=%.2f ms p99=%.2f ms max=%.2f ms balance=%s",
+                        mode, threads, cardCount, total.ok, total.conflicts, total.errors,
+                        total.ok / elapsed,
+                        percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 1.0),
+                        consistent ? "consistent" : "MISMATCH " + sum);
+            } finally {
+                jdbc.update("DELETE FROM cards WHERE user_id = ?", userId);
+                jdbc.update("DELETE FROM users WHERE id = ?", userId);
+            }
+        }
+    }
+
+    private static Long seedUser(JdbcTemplate jdbc, String username) {
+        String phone = String.format("7%010d", System.nanoTime() % 10_000_000_000L);
+        return jdbc.queryForObject(
+                "INSERT INTO users (first_name, last_name, phone_number, username, password, role, created_at, updated_at) "
+                        + "VALUES ('Bench', 'User', ?, ?, '-', 'USER', now(), now()) RETURNING id",
+                Long.class, phone, username);
+    }
+
+    private static Long[] seedCards(JdbcTemplate jdbc, Long userId, int count) {
+        Long[] ids = new Long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = jdbc.queryForObject(
+                    "INSERT INTO cards (card_number, masked_card, card_holder_name, balance, expiry_date, status, "
+                            + "ccv, pin_code, card_type, is_default, user_id, created_at, update_at, version) "
+                            + "VALUES (?, ?, 'BENCH USER', ?, current_date + 365, 'ACTIVE', '-', '-', 'DEBIT', false, ?, now(), now(), 0) "
+                            + "RETURNING id",
+                    Long.class, "bench-" + UUID.randomUUID(), String.format("**** **** **** %04d", i),
+                    INITIAL_BALANCE, userId);
+        }
+        return ids;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    private static class Worker {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long ok;
+        private long conflicts;
+        private long errors;
+
+        void run(TransferService transferService, String username, Long[] cardIds, long deadline) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < deadline) {
+                int from = random.nextInt(cardIds.length);
+                int to = (from + 1 + random.nextInt(cardIds.length - 1)) % cardIds.length;
+                TransferRequest request = new TransferRequest(cardIds[from], cardIds[to], AMOUNT);
+
+                long began = System.nanoTime();
+                try {
+                    transferService.transferBetweenOwnCards(request, username);
+                    ok++;
+                } catch (ConflictException e) {
+                    conflicts++;
+                } catch (RuntimeException e) {
+                    errors++;
+                }
+                record(System.nanoTime() - began);
+            }
+        }
+
+        void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+
+        void merge(Worker other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i]);
+            }
+            ok += other.ok;
+            conflicts += other.conflicts;
+            errors += other.errors;
+        }
+
+        long[] latencies() {
+            return Arrays.copyOf(latencies, count);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Соединение для транзакции @Transactional(readOnly = true) берётся из пула реплики,
+// для остальных транзакций - из пула основной БД. Вызов репозитория Spring Data вне транзакции
+// открывает собственную readOnly-транзакцию и тоже идёт в реплику, поэтому чтения, которым нельзя
+// отставать (отзыв токенов, кольцо ключей шифрования, ключи идемпотентности, промах кэша username -> id,
+// владельцы при массовом выпуске), выполняются в транзакции на запись. Промах кэша username -> id
+// из readOnly-транзакции сервиса читается в отдельной транзакции (PrincipalCache)
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Target.REPLICA : Target.PRIMARY;
+    }
+}
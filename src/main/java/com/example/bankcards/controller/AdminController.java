@@ -1,24 +1,38 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.BulkCardIssueRequest;
+import com.example.bankcards.dto.BulkCardIssueResponse;
 import com.example.bankcards.dto.CardCreateRequest;
+import com.example.bankcards.dto.CardExportFormat;
+import com.example.bankcards.dto.CardFilter;
 import com.example.bankcards.dto.CardResponse;
+import com.example.bankcards.dto.CursorPageResponse;
+import com.example.bankcards.dto.KeyRotationJobResponse;
 import com.example.bankcards.dto.PageResponse;
 import com.example.bankcards.dto.UserCreateRequest;
 import com.example.bankcards.dto.UserResponse;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.CardType;
+import com.example.bankcards.service.BulkCardIssuanceService;
+import com.example.bankcards.service.CardExportService;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.KeyRotationService;
 import com.example.bankcards.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -27,12 +41,23 @@ import java.util.List;
 @PreAuthorize("hasRole('ADMIN')")
 public class AdminController {
     
+    private static final String NDJSON = "application/x-ndjson";
+    
     @Autowired
     private UserService userService;
     
     @Autowired
     private CardService cardService;
     
+    @Autowired
+    private BulkCardIssuanceService bulkCardIssuanceService;
+    
+    @Autowired
+    private KeyRotationService keyRotationService;
+    
+    @Autowired
+    private CardExportService cardExportService;
+    
     // Управление пользователями
     @PostMapping("/users")
     @Operation(summary = "Создать пользователя", description = "Создание нового пользователя (только для администратора)")
@@ -42,12 +67,33 @@ public class AdminController {
     }
     
     @GetMapping("/users")
-    @Operation(summary = "Получить всех пользователей", description = "Получение списка всех пользователей")
-    public ResponseEntity<List<UserResponse>> getAllUsers() {
-        List<UserResponse> users = userService.getAllUsers();
+    @Operation(summary = "Получить всех пользователей", description = "Получение списка пользователей с пагинацией")
+    public ResponseEntity<PageResponse<UserResponse>> getAllUsers(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        PageResponse<UserResponse> users = userService.getAllUsers(page, size);
         return ResponseEntity.ok(users);
     }
     
+    @GetMapping(value = "/users", params = "cursor")
+    @Operation(summary = "Получить пользователей по курсору", description = "Keyset-пагинация по id: пустой cursor - первая страница, далее nextCursor из ответа")
+    public ResponseEntity<CursorPageResponse<UserResponse>> getUsersByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPageResponse<UserResponse> users = userService.getUsersByCursor(cursor, size);
+        return ResponseEntity.ok(users);
+    }
+    
+    @GetMapping(value = "/users/stream", produces = NDJSON)
+    @Operation(summary = "Выгрузить всех пользователей", description = "Потоковая выдача всех пользователей в формате NDJSON, по одному JSON-объекту на строку")
+    public ResponseEntity<StreamingResponseBody> streamUsers() {
+        // Строки пишутся в ответ по мере чтения из курсора БД
+        StreamingResponseBody body = userService::exportAllUsers;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+    
     @GetMapping("/users/{id}")
     @Operation(summary = "Получить пользователя по ID", description = "Получение информации о пользователе")
     public ResponseEntity<UserResponse> getUserById(@PathVariable Long id) {
@@ -62,6 +108,13 @@ public class AdminController {
         return ResponseEntity.noContent().build();
     }
     
+    @PostMapping("/users/{id}/revoke-tokens")
+    @Operation(summary = "Отозвать токены пользователя", description = "Все выданные пользователю JWT перестают приниматься")
+    public ResponseEntity<Void> revokeTokens(@PathVariable Long id) {
+        userService.revokeTokens(id);
+        return ResponseEntity.noContent().build();
+    }
+    
     // Управление картами
     @PostMapping("/cards")
     @Operation(summary = "Создать карту для пользователя", description = "Создание карты для указанного пользователя")
@@ -72,17 +125,58 @@ public class AdminController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
     
+    @PostMapping("/cards/bulk")
+    @Operation(summary = "Массовый выпуск карт", description = "Выпуск N карт для одного или нескольких пользователей")
+    public ResponseEntity<BulkCardIssueResponse> bulkIssueCards(@Valid @RequestBody BulkCardIssueRequest request) {
+        BulkCardIssueResponse response = bulkCardIssuanceService.issue(request);
+        // Выпуск остановлен на откатившемся чанке: в теле - сколько карт уже создано
+        HttpStatus status = "PARTIAL".equals(response.getStatus())
+                ? HttpStatus.INTERNAL_SERVER_ERROR
+                : HttpStatus.CREATED;
+        return ResponseEntity.status(status).body(response);
+    }
+    
     @GetMapping("/cards")
-    @Operation(summary = "Получить все карты", description = "Получение списка всех карт с пагинацией")
+    @Operation(summary = "Получить все карты", description = "Получение списка всех карт с пагинацией и фильтрами")
     public ResponseEntity<PageResponse<CardResponse>> getAllCards(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String search,
+            @RequestParam(required = false) CardStatus status,
+            @RequestParam(required = false) CardType cardType,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate expiryFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate expiryTo) {
+        CardFilter filter = new CardFilter(search, status, cardType, userId, expiryFrom, expiryTo);
+        PageResponse<CardResponse> response = cardService.getAllCards(page, size, filter);
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping(value = "/cards", params = "cursor")
+    @Operation(summary = "Получить все карты по курсору", description = "Keyset-пагинация: пустой cursor - первая страница, далее nextCursor из ответа")
+    public ResponseEntity<CursorPageResponse<CardResponse>> getAllCardsByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) CardStatus status) {
-        PageResponse<CardResponse> response = cardService.getAllCards(page, size, search, status);
+        CursorPageResponse<CardResponse> response = cardService.getAllCardsByCursor(cursor, size, status);
         return ResponseEntity.ok(response);
     }
     
+    @GetMapping("/cards/export")
+    @Operation(summary = "Выгрузить все карты", description = "Потоковая выгрузка всех карт в CSV или NDJSON, опционально в gzip")
+    public ResponseEntity<StreamingResponseBody> exportCards(
+            @RequestParam(defaultValue = "CSV") CardExportFormat format,
+            @RequestParam(required = false) CardStatus status,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        StreamingResponseBody body = outputStream -> cardExportService.export(format, status, gzip, outputStream);
+        
+        String fileName = "cards." + format.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+    
     @PostMapping("/cards/{id}/block")
     @Operation(summary = "Заблокировать карту", description = "Блокировка карты администратором")
     public ResponseEntity<CardResponse> blockCard(@PathVariable Long id) {
@@ -103,4 +197,19 @@ public class AdminController {
         cardService.adminDeleteCard(id);
         return ResponseEntity.noContent().build();
     }
+    
+    // Ротация ключа шифрования реквизитов карт
+    @PostMapping("/encryption/rotations")
+    @Operation(summary = "Запустить ротацию ключа шифрования", description = "Создаёт новый ключ и перешифровывает реквизиты всех карт в фоне")
+    public ResponseEntity<KeyRotationJobResponse> startKeyRotation() {
+        KeyRotationJobResponse response = keyRotationService.startRotation();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+    
+    @GetMapping("/encryption/rotations/{id}")
+    @Operation(summary = "Прогресс ротации ключа", description = "Состояние задания перешифрования")
+    public ResponseEntity<KeyRotationJobResponse> getKeyRotation(@PathVariable Long id) {
+        KeyRotationJobResponse response = keyRotationService.getJob(id);
+        return ResponseEntity.ok(response);
+    }
 }
@@ -2,6 +2,7 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CardCreateRequest;
 import com.example.bankcards.dto.CardResponse;
+import com.example.bankcards.dto.CursorPageResponse;
 import com.example.bankcards.dto.PageResponse;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.service.CardService;
@@ -55,6 +56,18 @@ public class CardController {
         return ResponseEntity.ok(response);
     }
     
+    @GetMapping(params = "cursor")
+    @Operation(summary = "Получить список карт по курсору", description = "Keyset-пагинация: пустой cursor - первая страница, далее nextCursor из ответа")
+    public ResponseEntity<CursorPageResponse<CardResponse>> getUserCardsByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) CardStatus status,
+            Authentication authentication) {
+        CursorPageResponse<CardResponse> response = cardService.getUserCardsByCursor(
+                authentication.getName(), cursor, size, status);
+        return ResponseEntity.ok(response);
+    }
+    
     @PostMapping("/{id}/block")
     @Operation(summary = "Заблокировать карту", description = "Запрос на блокировку карты")
     public ResponseEntity<CardResponse> blockCard(
@@ -1,9 +1,12 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.BatchTransferRequest;
+import com.example.bankcards.dto.BatchTransferResponse;
 import com.example.bankcards.dto.TransferRequest;
 import com.example.bankcards.dto.TransferResponse;
 import com.example.bankcards.service.TransferService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -26,8 +29,20 @@ public class TransferController {
     @Operation(summary = "Перевод между своими картами", description = "Выполнение перевода между картами текущего пользователя")
     public ResponseEntity<TransferResponse> transfer(
             @Valid @RequestBody TransferRequest request,
+            @Parameter(description = "Ключ идемпотентности: повтор с тем же ключом вернёт результат первого перевода")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             Authentication authentication) {
-        TransferResponse response = transferService.transferBetweenOwnCards(request, authentication.getName());
+        TransferResponse response = transferService.transferBetweenOwnCards(
+                request, authentication.getName(), idempotencyKey);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
+    
+    @PostMapping("/batch")
+    @Operation(summary = "Пакетный перевод между своими картами", description = "Выполнение списка переводов между картами текущего пользователя с результатом по каждому переводу")
+    public ResponseEntity<BatchTransferResponse> transferBatch(
+            @Valid @RequestBody BatchTransferRequest request,
+            Authentication authentication) {
+        BatchTransferResponse response = transferService.transferBatch(request.getTransfers(), authentication.getName());
+        return ResponseEntity.ok(response);
+    }
 }
@@ -0,0 +1,16 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferItemResult {
+    private int index;
+    private String status;
+    private TransferResponse transfer;
+    private String reason;
+    private String message;
+}
@@ -0,0 +1,19 @@
+package com.example.bankcards.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferRequest {
+    @NotEmpty(message = "Transfers are required")
+    @Size(max = 10000, message = "Batch must contain at most 10000 transfers")
+    private List<@Valid TransferRequest> transfers;
+}
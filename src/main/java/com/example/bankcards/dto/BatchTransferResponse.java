@@ -0,0 +1,17 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferResponse {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<BatchTransferItemResult> results;
+}
@@ -0,0 +1,33 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.CardType;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCardIssueRequest {
+    @NotEmpty(message = "User IDs are required")
+    private List<@NotNull Long> userIds;
+    
+    @Min(value = 1, message = "At least one card per user is required")
+    @Max(value = 100000, message = "At most 100000 cards per user")
+    private int cardsPerUser = 1;
+    
+    // Если не задано, берётся имя и фамилия владельца
+    private String cardHolderName;
+    
+    @NotNull(message = "Expiry date is required")
+    private LocalDate expiryDate;
+    
+    private CardType cardType = CardType.DEBIT;
+}
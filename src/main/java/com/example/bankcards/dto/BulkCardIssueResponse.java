@@ -0,0 +1,18 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCardIssueResponse {
+    private int requested;
+    // Карты выпускаются по порядку userIds, по cardsPerUser на пользователя: созданы первые created из них
+    private int created;
+    // COMPLETED - выпущены все карты, PARTIAL - чанк откатился, выпуск остановлен
+    private String status;
+    private String error;
+    private long durationMillis;
+}
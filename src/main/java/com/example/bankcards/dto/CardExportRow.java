@@ -0,0 +1,25 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.CardType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardExportRow {
+    private Long id;
+    private String maskedCard;
+    private String cardHolderName;
+    private CardStatus status;
+    private CardType cardType;
+    private LocalDate expiryDate;
+    private BigDecimal balance;
+    private Long userId;
+    private String username;
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.CardType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// Фильтры списка карт администратора; незаданные (null) поля не ограничивают выборку
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardFilter {
+    private String search;
+    private CardStatus status;
+    private CardType cardType;
+    private Long userId;
+    private LocalDate expiryFrom;
+    private LocalDate expiryTo;
+}
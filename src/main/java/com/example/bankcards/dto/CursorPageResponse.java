@@ -0,0 +1,19 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Страница keyset-пагинации: без номера страницы и общего количества (COUNT не выполняется)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int size;
+    // null на последней странице
+    private String nextCursor;
+    private boolean hasNext;
+}
@@ -0,0 +1,26 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.KeyRotationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeyRotationJobResponse {
+    private Long id;
+    private Integer targetKeyId;
+    private KeyRotationStatus status;
+    private Long processed;
+    private Long failed;
+    // Оценка числа карт по статистике таблицы
+    private Long total;
+    private Long lastCardId;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
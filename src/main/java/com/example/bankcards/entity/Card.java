@@ -18,18 +18,30 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Table(name = "cards")
 public class Card {
+    // Пул id из sequence: Hibernate не ходит в БД за каждым id и может батчить INSERT
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cards_seq")
+    @SequenceGenerator(name = "cards_seq", sequenceName = "cards_id_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Long id;
 
-    @Column(name = "card_number", unique = true, nullable = false, length = 500)
+    // Зашифрованные реквизиты пишутся только при INSERT; при смене ключа их перешифровывает
+    // KeyRotationService напрямую, и обычный UPDATE карты не должен затирать новое значение
+    @Column(name = "card_number", unique = true, nullable = false, updatable = false, length = 500)
     private String cardNumber;
 
+    // Blind index (HMAC номера карты): шифротекст случаен, искать по номеру можно только по нему
+    @Column(name = "card_number_hash", unique = true, updatable = false, length = 64)
+    private String cardNumberHash;
+
     @NotNull
     @Column(name = "masked_card", length = 19, nullable = false)
     private String maskedCard;
 
+    // Последние 4 цифры отдельно от маски: по ним работает индексный поиск
+    @Column(name = "last_four", length = 4)
+    private String lastFour;
+
     @NotNull
     @Column(name = "card_holder_name")
     private String cardHolderName;
@@ -44,13 +56,13 @@ public class Card {
     @Column(nullable = false)
     private CardStatus status = CardStatus.ACTIVE;
 
-    @Column(name = "ccv", nullable = false, length = 500)
+    @Column(name = "ccv", nullable = false, updatable = false, length = 500)
     private String ccv;
 
-    @Column(name = "pin_code", nullable = false, length = 500)
+    @Column(name = "pin_code", nullable = false, updatable = false, length = 500)
     private String pinCode;
 
-    @Column(name = "created_at")
+    @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
     @Column(name = "update_at")
@@ -67,6 +79,10 @@ public class Card {
     @Enumerated(EnumType.STRING)
     private CardType cardType = CardType.DEBIT;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate(){
         if (createdAt == null) {
@@ -84,6 +100,11 @@ public class Card {
         return LocalDate.now().isAfter(expiryDate);
     }
 
+    // Статус с учётом срока: истекшую карту CardExpirySweeper помечает в БД позже
+    public CardStatus getEffectiveStatus(){
+        return isExpired() ? CardStatus.EXPIRED : status;
+    }
+
     public boolean isUseble(){
         return status == CardStatus.ACTIVE && !isExpired();
     }
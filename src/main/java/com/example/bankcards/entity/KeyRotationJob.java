@@ -0,0 +1,55 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Перешифрование карт новым ключом; last_card_id - контрольная точка для продолжения после рестарта
+@Getter
+@Setter
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "key_rotation_jobs")
+public class KeyRotationJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "target_key_id", nullable = false)
+    private Integer targetKeyId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private KeyRotationStatus status;
+
+    @Column(name = "last_card_id", nullable = false)
+    private Long lastCardId = 0L;
+
+    @Column(name = "processed", nullable = false)
+    private Long processed = 0L;
+
+    @Column(name = "failed", nullable = false)
+    private Long failed = 0L;
+
+    @Column(name = "total")
+    private Long total;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "error", length = 1000)
+    private String error;
+
+}
@@ -0,0 +1,7 @@
+package com.example.bankcards.entity;
+
+public enum KeyRotationStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,60 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "transfers")
+public class Transfer {
+    // Идентификаторы берутся из sequence пачками, поэтому persist не ходит в БД,
+    // а вставки попадают в JDBC batch при flush вместе с обновлением карт
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transfers_seq")
+    @SequenceGenerator(name = "transfers_seq", sequenceName = "transfers_seq", allocationSize = 50)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "from_card_id", nullable = false)
+    private Long fromCardId;
+
+    @Column(name = "from_card_masked", length = 19, nullable = false)
+    private String fromCardMasked;
+
+    @Column(name = "to_card_id", nullable = false)
+    private Long toCardId;
+
+    @Column(name = "to_card_masked", length = 19, nullable = false)
+    private String toCardMasked;
+
+    @Column(name = "amount", nullable = false)
+    private BigDecimal amount;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @OneToMany(mappedBy = "transfer", cascade = CascadeType.PERSIST, fetch = FetchType.LAZY)
+    private List<LedgerEntry> entries = new ArrayList<>();
+
+    @PrePersist
+    protected void onCreate(){
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+}
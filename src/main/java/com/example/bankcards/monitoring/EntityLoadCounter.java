@@ -0,0 +1,18 @@
+package com.example.bankcards.monitoring;
+
+import org.hibernate.Interceptor;
+import org.hibernate.type.Type;
+
+// Загруженные сущности как мера прочитанных строк: ленивая коллекция User.cards или карта,
+// загруженная по одной в цикле, видны здесь. Проекции в DTO сущностей не создают и не учитываются
+public class EntityLoadCounter implements Interceptor {
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        SqlRequestStats stats = SqlRequestStats.current();
+        if (stats != null) {
+            stats.recordEntityLoad();
+        }
+        return false;
+    }
+}
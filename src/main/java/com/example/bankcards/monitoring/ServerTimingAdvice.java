@@ -0,0 +1,38 @@
+package com.example.bankcards.monitoring;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+// Заголовок Server-Timing с SQL-статистикой запроса. Ставится перед записью тела ответа: после неё
+// заголовки уже отправлены. Потоковые выгрузки (StreamingResponseBody) его не получают.
+// По умолчанию выключен - раскрывает клиентам устройство БД; включается в профилях dev и test
+@ControllerAdvice
+@ConditionalOnProperty(prefix = "app.sql-stats", name = "enabled", matchIfMissing = true)
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    @Value("${app.sql-stats.server-timing:false}")
+    private boolean serverTiming;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return serverTiming;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlRequestStats stats = SqlRequestStats.current();
+        if (stats != null) {
+            response.getHeaders().add("Server-Timing", stats.toServerTiming());
+        }
+        return body;
+    }
+}
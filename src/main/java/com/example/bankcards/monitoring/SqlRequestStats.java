@@ -0,0 +1,81 @@
+package com.example.bankcards.monitoring;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// SQL одного HTTP-запроса: число statement, загруженных сущностей и время выполнения в JDBC.
+// Хранится в ThreadLocal потока запроса; хуки Hibernate пишут сюда, только если статистика начата
+public final class SqlRequestStats {
+
+    private static final ThreadLocal<SqlRequestStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private int entities;
+    private long executionNanos;
+    private final Map<String, Integer> statementCounts = new HashMap<>();
+
+    private SqlRequestStats() {
+    }
+
+    // Начинает сбор в текущем потоке. null - сбор уже идёт (например, его начал тестовый помощник)
+    // и завершать его должен тот, кто начал
+    public static SqlRequestStats start() {
+        if (CURRENT.get() != null) {
+            return null;
+        }
+        SqlRequestStats stats = new SqlRequestStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    public static SqlRequestStats current() {
+        return CURRENT.get();
+    }
+
+    void recordStatement(String sql) {
+        statements++;
+        statementCounts.merge(sql, 1, Integer::sum);
+    }
+
+    void recordExecution(long nanos) {
+        executionNanos += nanos;
+    }
+
+    void recordEntityLoad() {
+        entities++;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getEntities() {
+        return entities;
+    }
+
+    public long getExecutionNanos() {
+        return executionNanos;
+    }
+
+    // Самый часто повторённый statement: один и тот же SQL много раз за запрос - типичный признак N+1
+    public Map.Entry<String, Integer> mostRepeated() {
+        Map.Entry<String, Integer> top = null;
+        for (Map.Entry<String, Integer> entry : statementCounts.entrySet()) {
+            if (top == null || entry.getValue() > top.getValue()) {
+                top = entry;
+            }
+        }
+        return top;
+    }
+
+    // Значение заголовка Server-Timing
+    public String toServerTiming() {
+        return String.format(Locale.ROOT, "db;desc=\"%d statements, %d entities\";dur=%.2f",
+                statements, entities, executionNanos / 1e6);
+    }
+}
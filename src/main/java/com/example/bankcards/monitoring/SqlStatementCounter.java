@@ -0,0 +1,17 @@
+package com.example.bankcards.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Каждый SQL, который Hibernate готовит к выполнению (HQL, Criteria, native, ленивые загрузки коллекций).
+// Запросы JdbcTemplate идут мимо Hibernate и здесь не видны
+public class SqlStatementCounter implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlRequestStats stats = SqlRequestStats.current();
+        if (stats != null) {
+            stats.recordStatement(sql);
+        }
+        return sql;
+    }
+}
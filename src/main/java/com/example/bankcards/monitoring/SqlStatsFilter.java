@@ -0,0 +1,102 @@
+package com.example.bankcards.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Собирает SQL-статистику запроса: метрики bank.sql.* по методу и шаблону пути, предупреждение в лог
+// при выходе за бюджет и при повторах одного statement. Стоит раньше Spring Security,
+// поэтому запросы к users из фильтра аутентификации тоже учитываются
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "app.sql-stats", name = "enabled", matchIfMissing = true)
+public class SqlStatsFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatsFilter.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.sql-stats.budget.statements:10}")
+    private int statementBudget;
+
+    @Value("${app.sql-stats.budget.time:PT0.1S}")
+    private Duration timeBudget;
+
+    // Столько одинаковых statement за запрос считаются подозрением на N+1
+    @Value("${app.sql-stats.repeat-threshold:5}")
+    private int repeatThreshold;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlRequestStats stats = SqlRequestStats.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (stats != null) {
+                SqlRequestStats.stop();
+                report(request, stats);
+            }
+        }
+    }
+
+    private void report(HttpServletRequest request, SqlRequestStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        // Шаблон пути, а не сам путь: id в URL не должны плодить серии метрик
+        String uri = pattern != null ? pattern.toString() : "UNMAPPED";
+        String method = request.getMethod();
+
+        DistributionSummary.builder("bank.sql.statements")
+                .description("SQL statements per HTTP request")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        DistributionSummary.builder("bank.sql.entities")
+                .description("Entities loaded per HTTP request")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getEntities());
+        Timer.builder("bank.sql.time")
+                .description("JDBC execution time per HTTP request")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getExecutionNanos(), TimeUnit.NANOSECONDS);
+
+        Map.Entry<String, Integer> repeated = stats.mostRepeated();
+        boolean nPlusOne = repeated != null && repeated.getValue() >= repeatThreshold;
+        if (nPlusOne) {
+            meterRegistry.counter("bank.sql.repeated", "method", method, "uri", uri).increment();
+        }
+        boolean overBudget = stats.getStatements() > statementBudget
+                || stats.getExecutionNanos() > timeBudget.toNanos();
+        if (overBudget || nPlusOne) {
+            log.warn("{} {}: {} SQL statements (budget {}), {} entities, {} ms in JDBC (budget {} ms){}",
+                    method, uri, stats.getStatements(), statementBudget, stats.getEntities(),
+                    String.format("%.2f", stats.getExecutionNanos() / 1e6), timeBudget.toMillis(),
+                    nPlusOne ? "; possible N+1, repeated " + repeated.getValue() + " times: " + repeated.getKey() : "");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.bankcards.monitoring;
+
+import org.hibernate.SessionEventListener;
+
+// Время выполнения statement и пакетов в JDBC. Создаётся Hibernate на каждую сессию
+// (hibernate.session.events.auto), сессия используется одним потоком
+public class SqlTimingSessionListener implements SessionEventListener {
+
+    private long statementStarted;
+    private long batchStarted;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStarted = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        record(statementStarted);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStarted = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        record(batchStarted);
+    }
+
+    private void record(long started) {
+        SqlRequestStats stats = SqlRequestStats.current();
+        if (stats != null) {
+            stats.recordExecution(System.nanoTime() - started);
+        }
+    }
+}
@@ -1,30 +1,131 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.CardExportRow;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface CardRepository extends JpaRepository<Card, Long> {
-    Page<Card> findByUser(User user, Pageable pageable);
-    Page<Card> findByUserAndStatus(User user, CardStatus status, Pageable pageable);
+public interface CardRepository extends JpaRepository<Card, Long>, JpaSpecificationExecutor<Card> {
+    // Фильтр :status (null - без фильтра) по статусу с учётом срока, как Card.getEffectiveStatus():
+    // истекшая карта считается EXPIRED и не считается ACTIVE/BLOCKED ещё до прохода CardExpirySweeper
+    String EFFECTIVE_STATUS = "(:status IS NULL " +
+            "OR (c.status = :status AND c.expiryDate >= CURRENT_DATE) " +
+            "OR (:status = com.example.bankcards.entity.CardStatus.EXPIRED " +
+            "AND (c.status = :status OR c.expiryDate < CURRENT_DATE)))";
+    
+    // Владелец задаётся id (cards.user_id), сущность User для этих запросов загружать не нужно
+    Page<Card> findByUserId(Long userId, Pageable pageable);
+    
+    @Query("SELECT c FROM Card c WHERE c.user.id = :userId AND " + EFFECTIVE_STATUS)
+    Page<Card> findByUserIdAndStatus(@Param("userId") Long userId,
+                                     @Param("status") CardStatus status,
+                                     Pageable pageable);
+    
     List<Card> findByUser(User user);
-    Optional<Card> findByCardNumber(String cardNumber);
-    Optional<Card> findByIdAndUser(Long id, User user);
-    
-    @Query("SELECT c FROM Card c WHERE c.user = :user AND " +
-           "(LOWER(c.maskedCard) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(c.cardHolderName) LIKE LOWER(CONCAT('%', :search, '%')))")
-    Page<Card> findByUserAndSearch(@Param("user") User user, 
-                                    @Param("search") String search, 
-                                    Pageable pageable);
+    // Поиск по номеру карты: передаётся CardDataEncryptor.cardNumberHash(номер), один проход по уникальному индексу
+    Optional<Card> findByCardNumberHash(String cardNumberHash);
+    Optional<Card> findByIdAndUserId(Long id, Long userId);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Card c WHERE c.id = :id AND c.user.id = :userId")
+    Optional<Card> findByIdAndUserIdForUpdate(@Param("id") Long id, @Param("userId") Long userId);
+    
+    // Строки блокируются в порядке ORDER BY, поэтому пакеты с общими картами не дают дедлок
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Card c WHERE c.user.id = :userId AND c.id IN :ids ORDER BY c.id")
+    List<Card> findAllByUserIdAndIdInForUpdate(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+    
+    // Перевод одним statement: обе строки обновляются только если карты принадлежат пользователю,
+    // активны и на карте списания хватает средств. Вернулось меньше двух строк - перевод не состоялся.
+    // Порядок блокировок в самом UPDATE ... WHERE id IN (...) зависит от плана, поэтому строки сначала
+    // блокирует CTE с ORDER BY id FOR UPDATE: UPDATE трогает только выданные им строки, и встречные
+    // переводы A→B и B→A берут блокировки в одном порядке
+    @Query(value = "WITH locked AS MATERIALIZED (" +
+           "SELECT id FROM cards WHERE id IN (:fromId, :toId) AND user_id = :userId ORDER BY id FOR UPDATE) " +
+           "UPDATE cards c SET " +
+           "balance = c.balance + CASE WHEN c.id = :toId THEN :amount ELSE -:amount END, " +
+           "version = c.version + 1, update_at = now() " +
+           "FROM locked WHERE c.id = locked.id " +
+           "AND c.status = 'ACTIVE' AND c.expiry_date >= current_date " +
+           "AND (c.id = :toId OR c.balance >= :amount) " +
+           "RETURNING c.id, c.masked_card AS \"maskedCard\"", nativeQuery = true)
+    List<TransferredCard> applyTransfer(@Param("fromId") Long fromId,
+                                        @Param("toId") Long toId,
+                                        @Param("userId") Long userId,
+                                        @Param("amount") BigDecimal amount);
+    
+    // Keyset-пагинация по (created_at, id) DESC: лимит задаёт Pageable без сортировки, COUNT не выполняется.
+    // Сравнение кортежей PostgreSQL выполняет одним диапазоном по индексу (user_id, created_at, id)
+    @Query("SELECT c FROM Card c WHERE c.user.id = :userId AND " + EFFECTIVE_STATUS + " " +
+           "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Card> findUserCardsFirstPage(@Param("userId") Long userId,
+                                      @Param("status") CardStatus status,
+                                      Pageable limit);
+    
+    @Query("SELECT c FROM Card c WHERE c.user.id = :userId AND " + EFFECTIVE_STATUS + " " +
+           "AND (c.createdAt, c.id) < (:createdAt, :id) " +
+           "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Card> findUserCardsAfter(@Param("userId") Long userId,
+                                  @Param("status") CardStatus status,
+                                  @Param("createdAt") LocalDateTime createdAt,
+                                  @Param("id") Long id,
+                                  Pageable limit);
+    
+    @Query("SELECT c FROM Card c WHERE " + EFFECTIVE_STATUS + " " +
+           "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Card> findCardsFirstPage(@Param("status") CardStatus status, Pageable limit);
+    
+    @Query("SELECT c FROM Card c WHERE " + EFFECTIVE_STATUS + " " +
+           "AND (c.createdAt, c.id) < (:createdAt, :id) " +
+           "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Card> findCardsAfter(@Param("status") CardStatus status,
+                              @Param("createdAt") LocalDateTime createdAt,
+                              @Param("id") Long id,
+                              Pageable limit);
+    
+    // Пакет истекших карт переводится в EXPIRED одним UPDATE. SKIP LOCKED: строки, занятые переводом
+    // или другим экземпляром приложения, достанутся следующему проходу. version увеличивается,
+    // чтобы оптимистичный перевод с устаревшей версией не вернул карте прежний статус
+    @Modifying
+    @Query(value = "UPDATE cards SET status = 'EXPIRED', version = version + 1, update_at = now() " +
+           "WHERE id IN (SELECT id FROM cards WHERE expiry_date < current_date AND status <> 'EXPIRED' " +
+           "LIMIT :batchSize FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int markExpired(@Param("batchSize") int batchSize);
+    
+    // Выгрузка всех карт через серверный курсор (fetch size, нужна открытая транзакция).
+    // Проекция в DTO: сущности не создаются и не копятся в контексте персистентности
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.example.bankcards.dto.CardExportRow(c.id, c.maskedCard, c.cardHolderName, c.status, " +
+           "c.cardType, c.expiryDate, c.balance, u.id, u.username) " +
+           "FROM Card c JOIN c.user u WHERE " + EFFECTIVE_STATUS + " ORDER BY c.id")
+    Stream<CardExportRow> streamForExport(@Param("status") CardStatus status);
+    
+    interface TransferredCard {
+        Long getId();
+        String getMaskedCard();
+    }
 }
@@ -0,0 +1,68 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.CardType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+
+// Условия для динамических запросов по картам. Для незаданного значения возвращается null,
+// и Specification.and такое условие пропускает
+public final class CardSpecifications {
+
+    private CardSpecifications() {
+    }
+
+    public static Specification<Card> ownedBy(Long userId) {
+        return userId == null ? null : (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    // Статус с учётом срока, как CardRepository.EFFECTIVE_STATUS
+    public static Specification<Card> hasStatus(CardStatus status) {
+        if (status == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            LocalDate today = LocalDate.now();
+            if (status == CardStatus.EXPIRED) {
+                return cb.or(cb.equal(root.get("status"), status), cb.lessThan(root.get("expiryDate"), today));
+            }
+            return cb.and(cb.equal(root.get("status"), status), cb.greaterThanOrEqualTo(root.get("expiryDate"), today));
+        };
+    }
+
+    public static Specification<Card> hasType(CardType cardType) {
+        return cardType == null ? null : (root, query, cb) -> cb.equal(root.get("cardType"), cardType);
+    }
+
+    public static Specification<Card> expiresOnOrAfter(LocalDate date) {
+        return date == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("expiryDate"), date);
+    }
+
+    public static Specification<Card> expiresOnOrBefore(LocalDate date) {
+        return date == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("expiryDate"), date);
+    }
+
+    // Префикс последних цифр номера: B-tree индекс по last_four (varchar_pattern_ops)
+    public static Specification<Card> lastFourStartsWith(String digits) {
+        return (root, query, cb) -> cb.like(root.get("lastFour"), digits + "%");
+    }
+
+    // Цифры в любом месте последних четырёх, как прежний поиск по masked_card. Индекс по last_four
+    // такой LIKE не использует, поэтому только внутри карт одного пользователя (индекс по user_id)
+    public static Specification<Card> lastFourContains(String digits) {
+        return (root, query, cb) -> cb.like(root.get("lastFour"), "%" + digits + "%");
+    }
+
+    // Точное совпадение полного номера по blind index (уникальный индекс по card_number_hash)
+    public static Specification<Card> cardNumberHashEquals(String cardNumberHash) {
+        return (root, query, cb) -> cb.equal(root.get("cardNumberHash"), cardNumberHash);
+    }
+
+    // pattern в нижнем регистре и с экранированием '\'; выражение совпадает с триграммным индексом
+    // на lower(card_holder_name)
+    public static Specification<Card> holderNameLike(String pattern) {
+        return (root, query, cb) -> cb.like(cb.lower(root.get("cardHolderName")), pattern, '\\');
+    }
+}
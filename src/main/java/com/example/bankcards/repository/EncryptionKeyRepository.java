@@ -0,0 +1,29 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.EncryptionKey;
+import com.example.bankcards.entity.EncryptionKeyStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface EncryptionKeyRepository extends JpaRepository<EncryptionKey, Integer> {
+    // Кольцо ключей читается из основной БД (не readOnly): после ротации ключ, которым уже шифруют
+    // карты, должен быть виден сразу, а не после догоняющей реплики
+    @Transactional
+    Optional<EncryptionKey> findByStatus(EncryptionKeyStatus status);
+    
+    @Override
+    @Transactional
+    List<EncryptionKey> findAll();
+    
+    @Modifying
+    @Query("UPDATE EncryptionKey k SET k.status = com.example.bankcards.entity.EncryptionKeyStatus.RETIRED " +
+           "WHERE k.status = com.example.bankcards.entity.EncryptionKeyStatus.ACTIVE")
+    int retireActive();
+}
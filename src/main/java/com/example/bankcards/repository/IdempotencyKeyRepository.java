@@ -0,0 +1,36 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+    Optional<IdempotencyKey> findByUsernameAndIdempotencyKey(String username, String idempotencyKey);
+    
+    // Конкурентная вставка того же ключа ждёт завершения первой транзакции:
+    // после её коммита возвращает 0, после отката вставляет строку
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (username, idempotency_key, created_at) " +
+                   "VALUES (:username, :key, now()) " +
+                   "ON CONFLICT (username, idempotency_key) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("username") String username,
+                       @Param("key") String key);
+    
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.transferId = :transferId " +
+           "WHERE k.username = :username AND k.idempotencyKey = :key")
+    int setTransferId(@Param("username") String username,
+                      @Param("key") String key,
+                      @Param("transferId") Long transferId);
+    
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
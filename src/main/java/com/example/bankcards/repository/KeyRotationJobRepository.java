@@ -0,0 +1,29 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.KeyRotationJob;
+import com.example.bankcards.entity.KeyRotationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface KeyRotationJobRepository extends JpaRepository<KeyRotationJob, Long> {
+    boolean existsByStatus(KeyRotationStatus status);
+    List<KeyRotationJob> findByStatus(KeyRotationStatus status);
+    
+    // Сдвиг контрольной точки только с ожидаемой позиции: если задание продвинул другой
+    // исполнитель или оно уже не RUNNING, вернётся 0 и чанк откатится
+    @Modifying
+    @Query(value = "UPDATE key_rotation_jobs SET last_card_id = :toCardId, " +
+                   "processed = processed + :processed, failed = failed + :failed, updated_at = now() " +
+                   "WHERE id = :id AND last_card_id = :fromCardId AND status = 'RUNNING'", nativeQuery = true)
+    int advance(@Param("id") Long id,
+                @Param("fromCardId") Long fromCardId,
+                @Param("toCardId") Long toCardId,
+                @Param("processed") long processed,
+                @Param("failed") long failed);
+}
@@ -0,0 +1,25 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, String> {
+    // Более старые отсечки не нужны: все токены, выданные до них, уже истекли.
+    // Не readOnly: читается из основной БД, отставание реплики вернуло бы отозванные токены в работу
+    @Transactional
+    List<TokenRevocation> findByRevokedBeforeAfter(LocalDateTime after);
+    
+    @Modifying
+    @Query(value = "INSERT INTO token_revocations (username, revoked_before) VALUES (:username, :revokedBefore) " +
+                   "ON CONFLICT (username) DO UPDATE SET revoked_before = EXCLUDED.revoked_before", nativeQuery = true)
+    int upsert(@Param("username") String username, @Param("revokedBefore") LocalDateTime revokedBefore);
+}
@@ -1,10 +1,19 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.UserResponse;
 import com.example.bankcards.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -14,4 +23,19 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
     boolean existsByPhoneNumber(String phoneNumber);
     boolean existsByEmail(String email);
+    
+    // Keyset-страница по id сразу в DTO, сущности в контекст не попадают
+    @Query("SELECT new com.example.bankcards.dto.UserResponse(u.id, u.firstName, u.lastName, u.phoneNumber, " +
+           "u.username, u.email, u.role, u.createdAt) FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<UserResponse> findPageAfter(@Param("afterId") Long afterId, Pageable limit);
+    
+    // Серверный курсор: драйвер читает строки пачками по fetch size (нужна открытая транзакция),
+    // Stream закрывать после использования
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.example.bankcards.dto.UserResponse(u.id, u.firstName, u.lastName, u.phoneNumber, " +
+           "u.username, u.email, u.role, u.createdAt) FROM User u ORDER BY u.id")
+    Stream<UserResponse> streamAll();
 }
@@ -0,0 +1,212 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.util.EncryptionUtil;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Шифрование реквизитов карт (номер, CVV, PIN) и генерация их значений.
+ * Форматы шифротекста (AES-GCM, Base64(IV || шифротекст || тег)):
+ * "v2:<keyId>:..." - ключом данных keyId из encryption_keys (envelope encryption),
+ * "v1:..." - напрямую мастер-ключом, без префикса - старый EncryptionUtil (AES/ECB).
+ * Мастер-ключ также шифрует сами ключи данных.
+ * Для поиска по номеру карты - blind index: HMAC-SHA256 от номера отдельным ключом,
+ * он не зависит от ротации ключей шифрования.
+ * Cipher не потокобезопасен, поэтому у каждого потока свой экземпляр; SecureRandom общий.
+ */
+@Component
+public class CardDataEncryptor {
+
+    static final String V1_PREFIX = "v1:";
+    static final String V2_PREFIX = "v2:";
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+    private static final int DATA_KEY_LENGTH = 32;
+    private static final String INDEX_ALGORITHM = "HmacSHA256";
+
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadLocal<Cipher> ciphers = ThreadLocal.withInitial(CardDataEncryptor::newCipher);
+    private final ThreadLocal<Mac> indexMacs = ThreadLocal.withInitial(this::newIndexMac);
+
+    // Base64 от 256-битного мастер-ключа
+    @Value("${card.encryption.key}")
+    private String encodedKey;
+
+    // Base64 от ключа HMAC для blind index номера карты
+    @Value("${card.encryption.index-key}")
+    private String encodedIndexKey;
+
+    private SecretKey masterKey;
+    private SecretKey indexKey;
+
+    // Подменяется целиком при загрузке и ротации ключей, читается без блокировок
+    private volatile DataKeys dataKeys = new DataKeys(Map.of(), null);
+
+    @PostConstruct
+    void init() {
+        // Ключи не имеют значений по умолчанию: задаются окружением, фиксированные - только в профиле dev
+        if (encodedKey == null || encodedKey.isBlank()) {
+            throw new IllegalStateException("card.encryption.key is not set: "
+                    + "set the CARD_ENCRYPTION_KEY environment variable or run with the dev profile");
+        }
+        byte[] keyBytes = Base64.getDecoder().decode(encodedKey);
+        if (keyBytes.length != 16 && keyBytes.length != 24 && keyBytes.length != 32) {
+            throw new IllegalStateException("card.encryption.key must be a Base64 encoded 128, 192 or 256 bit key");
+        }
+        masterKey = new SecretKeySpec(keyBytes, "AES");
+
+        if (encodedIndexKey == null || encodedIndexKey.isBlank()) {
+            throw new IllegalStateException("card.encryption.index-key is not set: "
+                    + "set the CARD_ENCRYPTION_INDEX_KEY environment variable or run with the dev profile");
+        }
+        byte[] indexKeyBytes = Base64.getDecoder().decode(encodedIndexKey);
+        if (indexKeyBytes.length < 32) {
+            throw new IllegalStateException("card.encryption.index-key must be a Base64 encoded key of at least 256 bits");
+        }
+        indexKey = new SecretKeySpec(indexKeyBytes, INDEX_ALGORITHM);
+    }
+
+    // Шифрует активным ключом данных; пока ключей данных нет - мастер-ключом (v1)
+    public String encrypt(String data) {
+        Integer activeKeyId = dataKeys.activeKeyId();
+        if (activeKeyId == null) {
+            return V1_PREFIX + Base64.getEncoder().encodeToString(seal(masterKey, data.getBytes(StandardCharsets.UTF_8)));
+        }
+        return encrypt(data, activeKeyId);
+    }
+
+    public String encrypt(String data, int keyId) {
+        byte[] sealed = seal(dataKey(keyId), data.getBytes(StandardCharsets.UTF_8));
+        return V2_PREFIX + keyId + ":" + Base64.getEncoder().encodeToString(sealed);
+    }
+
+    public String decrypt(String encryptedData) {
+        if (encryptedData.startsWith(V2_PREFIX)) {
+            int separator = encryptedData.indexOf(':', V2_PREFIX.length());
+            int keyId = Integer.parseInt(encryptedData.substring(V2_PREFIX.length(), separator));
+            byte[] payload = Base64.getDecoder().decode(encryptedData.substring(separator + 1));
+            return new String(open(dataKey(keyId), payload), StandardCharsets.UTF_8);
+        }
+        if (encryptedData.startsWith(V1_PREFIX)) {
+            byte[] payload = Base64.getDecoder().decode(encryptedData.substring(V1_PREFIX.length()));
+            return new String(open(masterKey, payload), StandardCharsets.UTF_8);
+        }
+        return EncryptionUtil.decrypt(encryptedData);
+    }
+
+    // Детерминированный keyed-хэш номера карты для точного поиска по индексу
+    public String cardNumberHash(String cardNumber) {
+        byte[] digest = indexMacs.get().doFinal(cardNumber.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest);
+    }
+
+    public boolean isEncryptedWith(String encryptedData, int keyId) {
+        return encryptedData.startsWith(V2_PREFIX + keyId + ":");
+    }
+
+    public Integer getActiveKeyId() {
+        return dataKeys.activeKeyId();
+    }
+
+    public void installDataKeys(Map<Integer, SecretKey> keys, Integer activeKeyId) {
+        dataKeys = new DataKeys(Map.copyOf(keys), activeKeyId);
+    }
+
+    public SecretKey generateDataKey() {
+        byte[] keyBytes = new byte[DATA_KEY_LENGTH];
+        random.nextBytes(keyBytes);
+        return new SecretKeySpec(keyBytes, "AES");
+    }
+
+    public String wrapKey(SecretKey dataKey) {
+        return Base64.getEncoder().encodeToString(seal(masterKey, dataKey.getEncoded()));
+    }
+
+    public SecretKey unwrapKey(String wrappedKey) {
+        return new SecretKeySpec(open(masterKey, Base64.getDecoder().decode(wrappedKey)), "AES");
+    }
+
+    public String generateCardNumber() {
+        char[] digits = new char[16];
+        for (int i = 0; i < digits.length; i++) {
+            digits[i] = (char) ('0' + random.nextInt(10));
+        }
+        return new String(digits);
+    }
+
+    public String generateCVV() {
+        return String.format("%03d", random.nextInt(1000));
+    }
+
+    public String generatePIN() {
+        return String.format("%04d", random.nextInt(10000));
+    }
+
+    private SecretKey dataKey(int keyId) {
+        SecretKey key = dataKeys.keys().get(keyId);
+        if (key == null) {
+            throw new IllegalStateException("Unknown data encryption key: " + keyId);
+        }
+        return key;
+    }
+
+    private byte[] seal(SecretKey key, byte[] data) {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        try {
+            Cipher cipher = ciphers.get();
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+            byte[] encrypted = cipher.doFinal(data);
+            return ByteBuffer.allocate(IV_LENGTH + encrypted.length).put(iv).put(encrypted).array();
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Ошибка при шифровании данных", e);
+        }
+    }
+
+    private byte[] open(SecretKey key, byte[] payload) {
+        try {
+            Cipher cipher = ciphers.get();
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, payload, 0, IV_LENGTH));
+            return cipher.doFinal(payload, IV_LENGTH, payload.length - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Ошибка при дешифровании данных", e);
+        }
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES/GCM is not available", e);
+        }
+    }
+
+    private Mac newIndexMac() {
+        try {
+            Mac mac = Mac.getInstance(INDEX_ALGORITHM);
+            mac.init(indexKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private record DataKeys(Map<Integer, SecretKey> keys, Integer activeKeyId) {
+    }
+}
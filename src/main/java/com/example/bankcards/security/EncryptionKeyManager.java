@@ -0,0 +1,70 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.EncryptionKey;
+import com.example.bankcards.entity.EncryptionKeyStatus;
+import com.example.bankcards.repository.EncryptionKeyRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.SecretKey;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+// Ключи данных из encryption_keys: расшифровываются мастер-ключом и передаются в CardDataEncryptor.
+// Периодическая перезагрузка подхватывает ключ, созданный ротацией на другом инстансе
+@Component
+public class EncryptionKeyManager {
+
+    @Autowired
+    private EncryptionKeyRepository encryptionKeyRepository;
+
+    @Autowired
+    private CardDataEncryptor cardDataEncryptor;
+
+    @PostConstruct
+    void init() {
+        if (encryptionKeyRepository.findByStatus(EncryptionKeyStatus.ACTIVE).isEmpty()) {
+            try {
+                encryptionKeyRepository.save(newKey());
+            } catch (DataIntegrityViolationException e) {
+                // Первый ключ одновременно создал другой инстанс (уникальный индекс на ACTIVE)
+            }
+        }
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${card.encryption.key-refresh-interval:PT1M}")
+    public void reload() {
+        Map<Integer, SecretKey> keys = new HashMap<>();
+        Integer activeKeyId = null;
+        for (EncryptionKey key : encryptionKeyRepository.findAll()) {
+            keys.put(key.getId(), cardDataEncryptor.unwrapKey(key.getWrappedKey()));
+            if (key.getStatus() == EncryptionKeyStatus.ACTIVE) {
+                activeKeyId = key.getId();
+            }
+        }
+        cardDataEncryptor.installDataKeys(keys, activeKeyId);
+    }
+
+    // Новый активный ключ; прежние остаются доступны для расшифровки. Вызывающий должен
+    // сделать reload() после коммита
+    @Transactional(propagation = Propagation.MANDATORY)
+    public EncryptionKey rotate() {
+        encryptionKeyRepository.retireActive();
+        return encryptionKeyRepository.saveAndFlush(newKey());
+    }
+
+    private EncryptionKey newKey() {
+        EncryptionKey key = new EncryptionKey();
+        key.setWrappedKey(cardDataEncryptor.wrapKey(cardDataEncryptor.generateDataKey()));
+        key.setStatus(EncryptionKeyStatus.ACTIVE);
+        key.setCreatedAt(LocalDateTime.now());
+        return key;
+    }
+}
@@ -1,12 +1,18 @@
 package com.example.bankcards.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -14,6 +20,8 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -24,36 +32,72 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private JwtTokenUtil jwtTokenUtil;
     
+    @Autowired
+    private TokenRevocationRegistry tokenRevocationRegistry;
+    
+    // true - пользователь и роль берутся из проверенного токена, без запроса к таблице users
+    @Value("${jwt.trust-claims:false}")
+    private boolean trustClaims;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Проверка токена с учётом кэша: valid - токен принят, invalid - подпись, срок или формат не прошли
+    private Timer validTokens;
+    private Timer invalidTokens;
+    
+    @PostConstruct
+    void initMetrics() {
+        validTokens = verificationTimer("valid");
+        invalidTokens = verificationTimer("invalid");
+    }
+    
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
                                     HttpServletResponse response, 
                                     FilterChain chain) throws ServletException, IOException {
         final String requestTokenHeader = request.getHeader("Authorization");
         
-        String username = null;
-        String jwtToken = null;
+        JwtClaims claims = null;
         
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
+            String jwtToken = requestTokenHeader.substring(7);
+            long started = System.nanoTime();
             try {
-                username = jwtTokenUtil.getUsernameFromToken(jwtToken);
+                // Подпись и срок действия проверяются один раз, повторные запросы с тем же токеном берутся из кэша
+                claims = jwtTokenUtil.verifyToken(jwtToken);
+                validTokens.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
             } catch (Exception e) {
+                invalidTokens.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
                 logger.error("Unable to get JWT Token", e);
             }
         }
         
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        if (claims != null && tokenRevocationRegistry.isRevoked(claims)) {
+            logger.debug("JWT Token has been revoked for user " + claims.username());
+            claims = null;
+        }
+        
+        if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // В токенах без роли (generateToken(UserDetails)) роль берётся из БД
+            UserDetails userDetails = trustClaims && claims.role() != null
+                    ? new User(claims.username(), "", List.of(new SimpleGrantedAuthority("ROLE_" + claims.role())))
+                    : this.userDetailsService.loadUserByUsername(claims.username());
             
-            if (jwtTokenUtil.validateToken(jwtToken, userDetails)) {
-                UsernamePasswordAuthenticationToken authenticationToken = 
-                    new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities()
-                    );
-                authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
-            }
+            UsernamePasswordAuthenticationToken authenticationToken = 
+                new UsernamePasswordAuthenticationToken(
+                    userDetails, null, userDetails.getAuthorities()
+                );
+            authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authenticationToken);
         }
         chain.doFilter(request, response);
     }
+    
+    private Timer verificationTimer(String result) {
+        return Timer.builder("bank.jwt.verification")
+                .description("JWT signature and expiry verification, including the verified-token cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
 }
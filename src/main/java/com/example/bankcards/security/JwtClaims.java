@@ -0,0 +1,7 @@
+package com.example.bankcards.security;
+
+import java.time.Instant;
+
+// Проверенные (подпись и срок действия) данные токена
+public record JwtClaims(String username, String role, Instant issuedAt, Instant expiresAt) {
+}
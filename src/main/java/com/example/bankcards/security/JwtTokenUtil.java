@@ -1,38 +1,92 @@
 package com.example.bankcards.security;
 
+import com.example.bankcards.util.BoundedCache;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
 import java.util.function.Function;
 
 @Component
 public class JwtTokenUtil {
     
+    // HS256 требует ключ не короче 256 бит, более короткий jjwt отвергает (WeakKeyException)
+    private static final int MIN_SECRET_BYTES = 32;
+    
     @Value("${jwt.secret}")
     private String secret;
     
     @Value("${jwt.expiration}")
     private Long expiration;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    @Value("${jwt.cache-size:10000}")
+    private int cacheSize;
+    
+    // Ключ и парсер строятся один раз, JwtParser потокобезопасен
+    private SecretKey signingKey;
+    private JwtParser parser;
+    
+    // Уже проверенные токены по SHA-256 от токена, каждая запись живёт до истечения токена
+    private BoundedCache<String, JwtClaims> verifiedTokens;
+    
+    @PostConstruct
+    void init() {
+        byte[] secretBytes = secret == null ? new byte[0] : secret.getBytes(StandardCharsets.UTF_8);
+        if (secretBytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("jwt.secret must be at least " + MIN_SECRET_BYTES * 8
+                    + " bits (" + MIN_SECRET_BYTES + " bytes), got " + secretBytes.length
+                    + " bytes: set the JWT_SECRET environment variable or run with the dev profile");
+        }
+        signingKey = Keys.hmacShaKeyFor(secretBytes);
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        verifiedTokens = new BoundedCache<>(cacheSize, Duration.ofMillis(expiration));
+    }
+    
+    // Разбирает и проверяет токен один раз; при невалидном или истёкшем токене бросает JwtException
+    public JwtClaims verifyToken(String token) {
+        String cacheKey = hash(token);
+        JwtClaims cached = verifiedTokens.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        
+        JwtClaims claims = parseClaims(token);
+        verifiedTokens.put(cacheKey, claims, claims.expiresAt().toEpochMilli());
+        return claims;
+    }
+    
+    JwtClaims parseClaims(String token) {
+        Claims claims = getAllClaimsFromToken(token);
+        return new JwtClaims(
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration().toInstant()
+        );
     }
     
     public String getUsernameFromToken(String token) {
-        return getClaimFromToken(token, Claims::getSubject);
+        return verifyToken(token).username();
     }
     
     public Date getExpirationDateFromToken(String token) {
-        return getClaimFromToken(token, Claims::getExpiration);
+        return Date.from(verifyToken(token).expiresAt());
     }
     
     public <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
@@ -41,16 +95,7 @@ public class JwtTokenUtil {
     }
     
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
-    
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+        return parser.parseSignedClaims(token).getPayload();
     }
     
     public String generateToken(UserDetails userDetails) {
@@ -70,12 +115,22 @@ public class JwtTokenUtil {
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
     
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        // Истёкший или поддельный токен не проходит verifyToken
+        final String username = verifyToken(token).username();
+        return username.equals(userDetails.getUsername());
+    }
+    
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
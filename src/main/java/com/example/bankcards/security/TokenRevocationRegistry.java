@@ -0,0 +1,76 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.TokenRevocation;
+import com.example.bankcards.repository.TokenRevocationRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+
+// Отзыв токенов без обращения к БД на каждый запрос: отсечки по iat держатся в памяти
+// и периодически перечитываются из token_revocations (изменения с других инстансов)
+@Component
+public class TokenRevocationRegistry {
+
+    @Autowired
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    @Value("${jwt.expiration}")
+    private Long expiration;
+
+    private volatile Map<String, Instant> revokedBefore = Map.of();
+
+    @PostConstruct
+    void init() {
+        refresh();
+    }
+
+    public boolean isRevoked(JwtClaims claims) {
+        Instant cutoff = revokedBefore.get(claims.username());
+        if (cutoff == null) {
+            return false;
+        }
+        // iat хранится с точностью до секунды, поэтому токен, выданный в ту же секунду, тоже считается отозванным
+        return claims.issuedAt() == null || !claims.issuedAt().isAfter(cutoff);
+    }
+
+    // Отзывает все выданные на текущий момент токены пользователя
+    @Transactional
+    public void revoke(String username) {
+        Instant now = Instant.now();
+        tokenRevocationRepository.upsert(username, LocalDateTime.ofInstant(now, ZoneId.systemDefault()));
+        synchronized (this) {
+            Map<String, Instant> updated = new HashMap<>(revokedBefore);
+            updated.put(username, now);
+            revokedBefore = Map.copyOf(updated);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval:PT30S}")
+    public void refresh() {
+        Instant horizon = Instant.now().minusMillis(expiration);
+        Map<String, Instant> loaded = new HashMap<>();
+        for (TokenRevocation revocation : tokenRevocationRepository.findByRevokedBeforeAfter(
+                LocalDateTime.ofInstant(horizon, ZoneId.systemDefault()))) {
+            loaded.put(revocation.getUsername(), revocation.getRevokedBefore().atZone(ZoneId.systemDefault()).toInstant());
+        }
+
+        synchronized (this) {
+            // Локальные отзывы, которые ещё не закоммичены, не теряем
+            revokedBefore.forEach((username, cutoff) -> {
+                if (cutoff.isAfter(horizon)) {
+                    loaded.merge(username, cutoff, (stored, local) -> stored.isAfter(local) ? stored : local);
+                }
+            });
+            revokedBefore = Map.copyOf(loaded);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.BulkCardIssueRequest;
+import com.example.bankcards.dto.BulkCardIssueResponse;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardType;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.BadRequestException;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Массовый выпуск карт администратором. Реквизиты генерируются и шифруются параллельно
+// на отдельном пуле, карты пишутся чанками: каждый чанк - одна транзакция и пачка JDBC batch INSERT
+// (id карт берутся из пула sequence, поэтому batch_size действительно работает).
+// Закоммиченные чанки не откатываются: при ошибке выпуск останавливается и ответ сообщает,
+// сколько карт уже создано, чтобы повтор выпустил только недостающие
+@Service
+public class BulkCardIssuanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkCardIssuanceService.class);
+
+    private static final String CHUNK_FAILED = "Card issuance stopped because a chunk was rolled back, "
+            + "cards after the first 'created' were not issued";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardFactory cardFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${card.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${card.bulk.max-cards:200000}")
+    private int maxCards;
+
+    @Value("${card.bulk.crypto-threads:0}")
+    private int cryptoThreads;
+
+    private ExecutorService cryptoExecutor;
+    private int threads;
+
+    @PostConstruct
+    void init() {
+        threads = cryptoThreads > 0 ? cryptoThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        cryptoExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "card-issuance-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        cryptoExecutor.shutdown();
+        cryptoExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    public BulkCardIssueResponse issue(BulkCardIssueRequest request) {
+        long started = System.nanoTime();
+
+        Set<Long> userIds = new LinkedHashSet<>(request.getUserIds());
+        long requested = (long) userIds.size() * request.getCardsPerUser();
+        if (requested > maxCards) {
+            throw new BadRequestException("Bulk issuance is limited to " + maxCards + " cards per request");
+        }
+
+        // Владельцы читаются из основной БД: только что созданного пользователя реплика может ещё не показать
+        List<User> users = transactionTemplate.execute(status -> userRepository.findAllById(userIds));
+        if (users.size() != userIds.size()) {
+            users.forEach(user -> userIds.remove(user.getId()));
+            throw new ResourceNotFoundException("User not found with id: " + userIds.iterator().next());
+        }
+
+        List<User> owners = new ArrayList<>((int) requested);
+        for (User user : users) {
+            for (int i = 0; i < request.getCardsPerUser(); i++) {
+                owners.add(user);
+            }
+        }
+
+        // Пока текущий чанк пишется в БД, реквизиты следующего уже шифруются
+        int created = 0;
+        String error = null;
+        CompletableFuture<List<Card>> next = prepare(owners, 0, request);
+        for (int from = 0; from < owners.size(); from += chunkSize) {
+            try {
+                List<Card> chunk = next.join();
+                if (from + chunkSize < owners.size()) {
+                    next = prepare(owners, from + chunkSize, request);
+                }
+                persist(chunk);
+                created += chunk.size();
+            } catch (RuntimeException e) {
+                // Текст исключения (SQL, имена таблиц) остаётся в логе, администратор получает число созданных карт
+                log.error("Bulk card issuance stopped after {} of {} cards", created, requested, e);
+                error = CHUNK_FAILED;
+                break;
+            }
+        }
+
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        return new BulkCardIssueResponse((int) requested, created, error == null ? "COMPLETED" : "PARTIAL",
+                error, durationMillis);
+    }
+
+    private CompletableFuture<List<Card>> prepare(List<User> owners, int from, BulkCardIssueRequest request) {
+        List<User> chunk = owners.subList(from, Math.min(from + chunkSize, owners.size()));
+        int sliceSize = (chunk.size() + threads - 1) / threads;
+
+        List<CompletableFuture<List<Card>>> slices = new ArrayList<>();
+        for (int start = 0; start < chunk.size(); start += sliceSize) {
+            List<User> slice = chunk.subList(start, Math.min(start + sliceSize, chunk.size()));
+            slices.add(CompletableFuture.supplyAsync(() -> build(slice, request), cryptoExecutor));
+        }
+        return CompletableFuture.allOf(slices.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    List<Card> cards = new ArrayList<>(chunk.size());
+                    slices.forEach(slice -> cards.addAll(slice.join()));
+                    return cards;
+                });
+    }
+
+    private List<Card> build(List<User> owners, BulkCardIssueRequest request) {
+        CardType cardType = request.getCardType() != null ? request.getCardType() : CardType.DEBIT;
+        List<Card> cards = new ArrayList<>(owners.size());
+        for (User owner : owners) {
+            cards.add(cardFactory.newCard(owner, holderName(owner, request), request.getExpiryDate(), cardType));
+        }
+        return cards;
+    }
+
+    private String holderName(User owner, BulkCardIssueRequest request) {
+        if (request.getCardHolderName() != null && !request.getCardHolderName().isBlank()) {
+            return request.getCardHolderName();
+        }
+        return (owner.getFirstName() + " " + owner.getLastName()).toUpperCase();
+    }
+
+    private void persist(List<Card> cards) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Card card : cards) {
+                entityManager.persist(card);
+            }
+            // Сбрасываем и очищаем контекст, чтобы он не рос от чанка к чанку
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.CardRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Переводит истекшие карты в EXPIRED пакетными UPDATE вместо записи при каждом чтении.
+// Каждый пакет - отдельная короткая транзакция, блокировки строк держатся недолго
+@Component
+public class CardExpirySweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(CardExpirySweeper.class);
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${card.expiry-sweep.batch-size:1000}")
+    private int batchSize;
+
+    // Сколько карт фоновая задача перевела в EXPIRED, вместо записей при чтении
+    private Counter expiredCards;
+
+    @PostConstruct
+    void init() {
+        expiredCards = Counter.builder("bank.cards.expired")
+                .description("Cards marked EXPIRED by the expiry sweep")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${card.expiry-sweep.interval:PT1H}")
+    @Timed("bank.cards.expiry.sweep")
+    public void sweep() {
+        long total = 0;
+        int updated;
+        do {
+            updated = transactionTemplate.execute(status -> cardRepository.markExpired(batchSize));
+            total += updated;
+            expiredCards.increment(updated);
+        } while (updated == batchSize);
+
+        if (total > 0) {
+            log.info("Marked {} cards as expired", total);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardExportFormat;
+import com.example.bankcards.dto.CardExportRow;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.repository.CardRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+// Выгрузка всех карт для комплаенса. Строки читаются из серверного курсора и сразу пишутся в ответ,
+// поэтому расход памяти не зависит от числа карт
+@Service
+public class CardExportService {
+
+    private static final String CSV_HEADER =
+            "id,masked_card,card_holder_name,status,card_type,expiry_date,balance,user_id,username";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public void export(CardExportFormat format, CardStatus status, boolean gzip, OutputStream target) throws IOException {
+        GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(target, BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(gzip ? gzipStream : target, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        if (format == CardExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        try (Stream<CardExportRow> rows = cardRepository.streamForExport(status)) {
+            LocalDate today = LocalDate.now();
+            rows.forEach(row -> {
+                // Как и в CardResponse: истекшая карта выгружается как EXPIRED до прохода CardExpirySweeper
+                if (row.getExpiryDate().isBefore(today)) {
+                    row.setStatus(CardStatus.EXPIRED);
+                }
+                try {
+                    writer.write(format == CardExportFormat.CSV ? toCsv(row) : objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Клиент оборвал соединение - курсор закрыт, транзакция откатится
+            throw e.getCause();
+        }
+
+        writer.flush();
+        if (gzipStream != null) {
+            // Дописать трейлер gzip, сам поток ответа закрывает контейнер
+            gzipStream.finish();
+        }
+    }
+
+    private String toCsv(CardExportRow row) {
+        return row.getId() + "," +
+                csv(row.getMaskedCard()) + "," +
+                csv(row.getCardHolderName()) + "," +
+                row.getStatus() + "," +
+                row.getCardType() + "," +
+                row.getExpiryDate() + "," +
+                row.getBalance().toPlainString() + "," +
+                row.getUserId() + "," +
+                csv(row.getUsername());
+    }
+
+    private String csv(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        // Значения, которые табличный редактор примет за формулу, экранируются апострофом
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r') {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
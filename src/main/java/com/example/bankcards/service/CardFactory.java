@@ -0,0 +1,55 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.CardType;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.security.CardDataEncryptor;
+import com.example.bankcards.util.CardMaskUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Выпуск новой карты: генерация и шифрование реквизитов. Не обращается к БД,
+// поэтому безопасно вызывается параллельно из нескольких потоков
+@Component
+public class CardFactory {
+
+    @Autowired
+    private CardDataEncryptor cardDataEncryptor;
+
+    public Card newCard(User user, String cardHolderName, LocalDate expiryDate, CardType cardType) {
+        // Генерируем номер карты и шифруем его
+        String cardNumber = cardDataEncryptor.generateCardNumber();
+        String encryptedCardNumber = cardDataEncryptor.encrypt(cardNumber);
+        String maskedCard = CardMaskUtil.maskCardNumber(cardNumber);
+
+        // Шифруем CVV и PIN
+        String cvv = cardDataEncryptor.generateCVV();
+        String encryptedCvv = cardDataEncryptor.encrypt(cvv);
+        String pin = cardDataEncryptor.generatePIN();
+        String encryptedPin = cardDataEncryptor.encrypt(pin);
+
+        Card card = new Card();
+        card.setCardNumber(encryptedCardNumber);
+        card.setCardNumberHash(cardDataEncryptor.cardNumberHash(cardNumber));
+        card.setMaskedCard(maskedCard);
+        card.setLastFour(CardMaskUtil.getLastFourDigits(maskedCard));
+        card.setCardHolderName(cardHolderName);
+        card.setBalance(BigDecimal.ZERO);
+        card.setExpiryDate(expiryDate);
+        card.setStatus(CardStatus.ACTIVE);
+        card.setCcv(encryptedCvv);
+        card.setPinCode(encryptedPin);
+        card.setCardType(cardType);
+        card.setUser(user);
+
+        // Проверяем срок действия
+        if (card.getExpiryDate().isBefore(LocalDate.now())) {
+            card.setStatus(CardStatus.EXPIRED);
+        }
+        return card;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.security.CardDataEncryptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Заполняет card_number_hash у карт, созданных до появления blind index.
+// Идёт чанками по id в фоне после старта; условие IS NULL делает повторный или параллельный
+// запуск на нескольких инстансах безопасным
+@Component
+public class CardNumberIndexBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(CardNumberIndexBackfill.class);
+
+    private static final String SELECT_CHUNK =
+            "SELECT id, card_number FROM cards WHERE card_number_hash IS NULL AND id > ? ORDER BY id LIMIT ?";
+    private static final String UPDATE_HASH =
+            "UPDATE cards SET card_number_hash = ? WHERE id = ? AND card_number_hash IS NULL";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CardDataEncryptor cardDataEncryptor;
+
+    @Value("${card.encryption.index-backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${card.encryption.index-backfill.chunk-size:1000}")
+    private int chunkSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::backfill, "card-number-index-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public long backfill() {
+        long cursor = 0;
+        long updated = 0;
+        long skipped = 0;
+        while (true) {
+            List<Object[]> chunk = jdbcTemplate.query(SELECT_CHUNK,
+                    (rs, rowNum) -> new Object[]{rs.getLong("id"), rs.getString("card_number")},
+                    cursor, chunkSize);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            cursor = (Long) chunk.get(chunk.size() - 1)[0];
+
+            List<Object[]> hashes = new ArrayList<>(chunk.size());
+            for (Object[] row : chunk) {
+                try {
+                    hashes.add(new Object[]{cardDataEncryptor.cardNumberHash(cardDataEncryptor.decrypt((String) row[1])), row[0]});
+                } catch (RuntimeException e) {
+                    // Нечитаемый номер пропускаем, он останется без индекса
+                    skipped++;
+                    log.warn("Cannot index card number of card {}: {}", row[0], e.getMessage());
+                }
+            }
+            if (!hashes.isEmpty()) {
+                int[] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPDATE_HASH, hashes));
+                for (int count : counts) {
+                    updated += Math.max(count, 0);
+                }
+            }
+        }
+        if (updated > 0 || skipped > 0) {
+            log.info("Card number index backfill finished: {} indexed, {} skipped", updated, skipped);
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.exception.BadRequestException;
+import com.example.bankcards.repository.CardSpecifications;
+import com.example.bankcards.security.CardDataEncryptor;
+import com.example.bankcards.util.CardSearchQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+// Поиск карт с выбором индекса под вид запроса:
+// - маска ("**** 12") - начало last_four (B-tree);
+// - четыре цифры - last_four целиком, 1-3 цифры - подстрока last_four, как прежний поиск по masked_card;
+// - больше четырёх цифр - полный номер, точное совпадение по blind index card_number_hash;
+// - текст - подстрока имени держателя через триграммный GIN-индекс на lower(card_holder_name)
+@Component
+public class CardSearch {
+
+    private static final int LAST_FOUR = 4;
+
+    // Триграммный индекс не помогает на строках короче трёх символов
+    private static final int MIN_GLOBAL_TEXT_LENGTH = 3;
+
+    @Autowired
+    private CardDataEncryptor cardDataEncryptor;
+
+    // global - поиск по всем пользователям, там не принимаются короткий текст и подстрока цифр
+    public Specification<Card> toSpecification(String query, boolean global) {
+        String prefix = CardSearchQuery.lastFourPrefix(query);
+        if (prefix != null) {
+            return CardSpecifications.lastFourStartsWith(prefix);
+        }
+
+        String digits = CardSearchQuery.cardDigits(query);
+        if (digits != null) {
+            if (digits.length() > LAST_FOUR) {
+                return CardSpecifications.cardNumberHashEquals(cardDataEncryptor.cardNumberHash(digits));
+            }
+            if (digits.length() == LAST_FOUR) {
+                return CardSpecifications.lastFourStartsWith(digits);
+            }
+            if (global) {
+                throw new BadRequestException("Card number search needs the last " + LAST_FOUR
+                        + " digits or the full card number");
+            }
+            return CardSpecifications.lastFourContains(digits);
+        }
+
+        if (global && query.trim().length() < MIN_GLOBAL_TEXT_LENGTH) {
+            throw new BadRequestException("Search text must be at least " + MIN_GLOBAL_TEXT_LENGTH + " characters");
+        }
+        return CardSpecifications.holderNameLike(CardSearchQuery.holderNamePattern(query));
+    }
+}
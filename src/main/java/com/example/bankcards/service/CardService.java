@@ -1,7 +1,9 @@
 package com.example.bankcards.service;
 
 import com.example.bankcards.dto.CardCreateRequest;
+import com.example.bankcards.dto.CardFilter;
 import com.example.bankcards.dto.CardResponse;
+import com.example.bankcards.dto.CursorPageResponse;
 import com.example.bankcards.dto.PageResponse;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
@@ -9,99 +11,86 @@ import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.BadRequestException;
 import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardSpecifications;
 import com.example.bankcards.repository.UserRepository;
-import com.example.bankcards.util.CardMaskUtil;
-import com.example.bankcards.util.EncryptionUtil;
+import com.example.bankcards.security.CardDataEncryptor;
+import com.example.bankcards.util.PageCursor;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
+@Timed("bank.service")
 public class CardService {
     
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+    
     @Autowired
     private CardRepository cardRepository;
     
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private CardFactory cardFactory;
+    
+    @Autowired
+    private PrincipalCache principalCache;
+    
+    @Autowired
+    private CardDataEncryptor cardDataEncryptor;
+    
+    @Autowired
+    private CardSearch cardSearch;
+    
     public CardResponse createCard(CardCreateRequest request, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+        // Для user_id карты достаточно ссылки, сам пользователь не загружается
+        User user = userRepository.getReferenceById(principalCache.resolveUserId(username));
         
-        // Генерируем номер карты и шифруем его
-        String cardNumber = EncryptionUtil.generateCardNumber();
-        String encryptedCardNumber = EncryptionUtil.encrypt(cardNumber);
-        String maskedCard = CardMaskUtil.maskCardNumber(cardNumber);
-        
-        // Шифруем CVV и PIN
-        String cvv = EncryptionUtil.generateCVV();
-        String encryptedCvv = EncryptionUtil.encrypt(cvv);
-        String pin = EncryptionUtil.generatePIN();
-        String encryptedPin = EncryptionUtil.encrypt(pin);
-        
-        Card card = new Card();
-        card.setCardNumber(encryptedCardNumber);
-        card.setMaskedCard(maskedCard);
-        card.setCardHolderName(request.getCardHolderName());
-        card.setBalance(BigDecimal.ZERO);
-        card.setExpiryDate(request.getExpiryDate());
-        card.setStatus(CardStatus.ACTIVE);
-        card.setCcv(encryptedCvv);
-        card.setPinCode(encryptedPin);
-        card.setCardType(request.getCardType());
-        card.setUser(user);
-        
-        // Проверяем срок действия
-        if (card.getExpiryDate().isBefore(LocalDate.now())) {
-            card.setStatus(CardStatus.EXPIRED);
-        }
+        Card card = cardFactory.newCard(user, request.getCardHolderName(), request.getExpiryDate(), request.getCardType());
         
         Card savedCard = cardRepository.save(card);
         return mapToResponse(savedCard);
     }
     
+    @Transactional(readOnly = true)
     public CardResponse getCardById(Long id, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+        Long userId = principalCache.resolveUserId(username);
         
-        Card card = cardRepository.findByIdAndUser(id, user)
+        Card card = cardRepository.findByIdAndUserId(id, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Card not found with id: " + id));
         
-        // Обновляем статус, если карта истекла
-        updateCardStatusIfExpired(card);
-        
         return mapToResponse(card);
     }
     
+    @Transactional(readOnly = true)
     public PageResponse<CardResponse> getUserCards(String username, int page, int size, String search, CardStatus status) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+        Long userId = principalCache.resolveUserId(username);
         
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
         Page<Card> cardPage;
         
         if (search != null && !search.trim().isEmpty()) {
-            cardPage = cardRepository.findByUserAndSearch(user, search.trim(), pageable);
+            cardPage = cardRepository.findAll(
+                    Specification.where(CardSpecifications.ownedBy(userId))
+                            .and(cardSearch.toSpecification(search, false)),
+                    pageable);
         } else if (status != null) {
-            cardPage = cardRepository.findByUserAndStatus(user, status, pageable);
+            cardPage = cardRepository.findByUserIdAndStatus(userId, status, pageable);
         } else {
-            cardPage = cardRepository.findByUser(user, pageable);
+            cardPage = cardRepository.findByUserId(userId, pageable);
         }
         
-        // Обновляем статусы истекших карт
-        cardPage.getContent().forEach(this::updateCardStatusIfExpired);
-        
         List<CardResponse> content = cardPage.getContent().stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
@@ -116,11 +105,26 @@ public class CardService {
         );
     }
     
+    // Keyset-пагинация: пустой cursor - первая страница, иначе nextCursor предыдущей страницы
+    @Transactional(readOnly = true)
+    public CursorPageResponse<CardResponse> getUserCardsByCursor(String username, String cursor, int size, CardStatus status) {
+        Long userId = principalCache.resolveUserId(username);
+        Pageable limit = cursorLimit(size);
+        
+        List<Card> cards;
+        if (cursor == null || cursor.isBlank()) {
+            cards = cardRepository.findUserCardsFirstPage(userId, status, limit);
+        } else {
+            PageCursor position = PageCursor.decode(cursor);
+            cards = cardRepository.findUserCardsAfter(userId, status, position.createdAt(), position.id(), limit);
+        }
+        return toCursorPage(cards, size);
+    }
+    
     public CardResponse blockCard(Long id, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+        Long userId = principalCache.resolveUserId(username);
         
-        Card card = cardRepository.findByIdAndUser(id, user)
+        Card card = cardRepository.findByIdAndUserId(id, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Card not found with id: " + id));
         
         if (card.getStatus() == CardStatus.BLOCKED) {
@@ -133,10 +137,9 @@ public class CardService {
     }
     
     public CardResponse activateCard(Long id, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+        Long userId = principalCache.resolveUserId(username);
         
-        Card card = cardRepository.findByIdAndUser(id, user)
+        Card card = cardRepository.findByIdAndUserId(id, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Card not found with id: " + id));
         
         if (card.getStatus() == CardStatus.ACTIVE) {
@@ -157,30 +160,7 @@ public class CardService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
         
-        String cardNumber = EncryptionUtil.generateCardNumber();
-        String encryptedCardNumber = EncryptionUtil.encrypt(cardNumber);
-        String maskedCard = CardMaskUtil.maskCardNumber(cardNumber);
-        
-        String cvv = EncryptionUtil.generateCVV();
-        String encryptedCvv = EncryptionUtil.encrypt(cvv);
-        String pin = EncryptionUtil.generatePIN();
-        String encryptedPin = EncryptionUtil.encrypt(pin);
-        
-        Card card = new Card();
-        card.setCardNumber(encryptedCardNumber);
-        card.setMaskedCard(maskedCard);
-        card.setCardHolderName(request.getCardHolderName());
-        card.setBalance(BigDecimal.ZERO);
-        card.setExpiryDate(request.getExpiryDate());
-        card.setStatus(CardStatus.ACTIVE);
-        card.setCcv(encryptedCvv);
-        card.setPinCode(encryptedPin);
-        card.setCardType(request.getCardType());
-        card.setUser(user);
-        
-        if (card.getExpiryDate().isBefore(LocalDate.now())) {
-            card.setStatus(CardStatus.EXPIRED);
-        }
+        Card card = cardFactory.newCard(user, request.getCardHolderName(), request.getExpiryDate(), request.getCardType());
         
         Card savedCard = cardRepository.save(card);
         return mapToResponse(savedCard);
@@ -215,12 +195,20 @@ public class CardService {
         cardRepository.deleteById(cardId);
     }
     
-    public PageResponse<CardResponse> getAllCards(int page, int size, String search, CardStatus status) {
+    @Transactional(readOnly = true)
+    public PageResponse<CardResponse> getAllCards(int page, int size, CardFilter filter) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        // Для упрощения используем все карты, в реальном приложении нужен более сложный запрос
-        Page<Card> cardPage = cardRepository.findAll(pageable);
         
-        cardPage.getContent().forEach(this::updateCardStatusIfExpired);
+        // Все фильтры применяются в одном запросе к БД
+        Specification<Card> specification = Specification.where(CardSpecifications.hasStatus(filter.getStatus()))
+                .and(CardSpecifications.hasType(filter.getCardType()))
+                .and(CardSpecifications.ownedBy(filter.getUserId()))
+                .and(CardSpecifications.expiresOnOrAfter(filter.getExpiryFrom()))
+                .and(CardSpecifications.expiresOnOrBefore(filter.getExpiryTo()));
+        if (filter.getSearch() != null && !filter.getSearch().trim().isEmpty()) {
+            specification = specification.and(cardSearch.toSpecification(filter.getSearch(), filter.getUserId() == null));
+        }
+        Page<Card> cardPage = cardRepository.findAll(specification, pageable);
         
         List<CardResponse> content = cardPage.getContent().stream()
                 .map(this::mapToResponse)
@@ -236,11 +224,42 @@ public class CardService {
         );
     }
     
-    private void updateCardStatusIfExpired(Card card) {
-        if (card.isExpired() && card.getStatus() != CardStatus.EXPIRED) {
-            card.setStatus(CardStatus.EXPIRED);
-            cardRepository.save(card);
+    @Transactional(readOnly = true)
+    public CursorPageResponse<CardResponse> getAllCardsByCursor(String cursor, int size, CardStatus status) {
+        Pageable limit = cursorLimit(size);
+        
+        List<Card> cards;
+        if (cursor == null || cursor.isBlank()) {
+            cards = cardRepository.findCardsFirstPage(status, limit);
+        } else {
+            PageCursor position = PageCursor.decode(cursor);
+            cards = cardRepository.findCardsAfter(status, position.createdAt(), position.id(), limit);
+        }
+        return toCursorPage(cards, size);
+    }
+    
+    // На одну запись больше размера страницы: так без COUNT понятно, есть ли следующая
+    private Pageable cursorLimit(int size) {
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new BadRequestException("Page size must be between 1 and " + MAX_CURSOR_PAGE_SIZE);
+        }
+        return PageRequest.of(0, size + 1);
+    }
+    
+    private CursorPageResponse<CardResponse> toCursorPage(List<Card> cards, int size) {
+        boolean hasNext = cards.size() > size;
+        List<Card> page = hasNext ? cards.subList(0, size) : cards;
+        
+        List<CardResponse> content = page.stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+        
+        String nextCursor = null;
+        if (hasNext) {
+            Card last = page.get(page.size() - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
         }
+        return new CursorPageResponse<>(content, content.size(), nextCursor, hasNext);
     }
     
     private CardResponse mapToResponse(Card card) {
@@ -250,7 +269,8 @@ public class CardService {
                 card.getCardHolderName(),
                 card.getBalance(),
                 card.getExpiryDate(),
-                card.getStatus(),
+                // Истекшие карты помечает CardExpirySweeper, чтение в БД не пишет
+                card.getEffectiveStatus(),
                 card.getCardType(),
                 card.isDefault()
         );
@@ -260,4 +280,9 @@ public class CardService {
         return cardRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Card not found with id: " + id));
     }
+    
+    public Card getCardEntityByCardNumber(String cardNumber) {
+        return cardRepository.findByCardNumberHash(cardDataEncryptor.cardNumberHash(cardNumber))
+                .orElseThrow(() -> new ResourceNotFoundException("Card not found"));
+    }
 }
@@ -0,0 +1,78 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.TransferResponse;
+import com.example.bankcards.entity.IdempotencyKey;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import com.example.bankcards.util.BoundedCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+// Ключи идемпотентности переводов: горячее окно в памяти, долговременно - в таблице idempotency_keys
+@Component
+public class IdempotencyKeyStore {
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Value("${transfer.idempotency.cache-size:100000}")
+    private int cacheSize;
+
+    @Value("${transfer.idempotency.cache-ttl:PT10M}")
+    private Duration cacheTtl;
+
+    @Value("${transfer.idempotency.retention:PT24H}")
+    private Duration retention;
+
+    private BoundedCache<String, TransferResponse> cache;
+
+    @PostConstruct
+    void init() {
+        cache = new BoundedCache<>(cacheSize, cacheTtl);
+    }
+
+    public TransferResponse getCached(String username, String key) {
+        return cache.get(cacheKey(username, key));
+    }
+
+    public void remember(String username, String key, TransferResponse response) {
+        cache.put(cacheKey(username, key), response);
+    }
+
+    // Не readOnly: ключ, только что закоммиченный параллельным запросом, реплика может ещё не показать
+    @Transactional
+    public Optional<Long> findTransferId(String username, String key) {
+        return idempotencyKeyRepository.findByUsernameAndIdempotencyKey(username, key)
+                .map(IdempotencyKey::getTransferId);
+    }
+
+    // Вызывается первым в транзакции перевода и вставляет ключ без id перевода.
+    // false - ключ занят переводом, который уже закоммичен
+    @Transactional
+    public boolean claim(String username, String key) {
+        return idempotencyKeyRepository.insertIfAbsent(username, key) > 0;
+    }
+
+    // В той же транзакции после перевода: ключ и перевод коммитятся вместе
+    @Transactional
+    public void complete(String username, String key, Long transferId) {
+        idempotencyKeyRepository.setTransferId(username, key, transferId);
+    }
+
+    @Scheduled(fixedDelayString = "${transfer.idempotency.purge-interval:PT1H}")
+    @Transactional
+    public void purgeExpired() {
+        idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+    }
+
+    private String cacheKey(String username, String key) {
+        return username + '\n' + key;
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.KeyRotationJobResponse;
+import com.example.bankcards.entity.EncryptionKey;
+import com.example.bankcards.entity.KeyRotationJob;
+import com.example.bankcards.entity.KeyRotationStatus;
+import com.example.bankcards.exception.ConflictException;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.KeyRotationJobRepository;
+import com.example.bankcards.security.CardDataEncryptor;
+import com.example.bankcards.security.EncryptionKeyManager;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Ротация ключа шифрования реквизитов карт без остановки сервиса.
+// Таблица cards читается чанками по id (keyset, без OFFSET), чанк перешифровывается на пуле потоков
+// и записывается пачкой UPDATE в короткой транзакции вместе со сдвигом контрольной точки задания.
+// Блокируются только строки текущего чанка; после рестарта задание продолжается с last_card_id
+@Service
+public class KeyRotationService {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyRotationService.class);
+
+    private static final String SELECT_CHUNK =
+            "SELECT id, card_number, ccv, pin_code FROM cards WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String UPDATE_CARD =
+            "UPDATE cards SET card_number = ?, ccv = ?, pin_code = ? WHERE id = ?";
+
+    @Autowired
+    private KeyRotationJobRepository keyRotationJobRepository;
+
+    @Autowired
+    private EncryptionKeyManager encryptionKeyManager;
+
+    @Autowired
+    private CardDataEncryptor cardDataEncryptor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${card.encryption.rotation.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${card.encryption.rotation.threads:0}")
+    private int threads;
+
+    @Value("${card.encryption.key-refresh-interval:PT1M}")
+    private Duration keyRefreshInterval;
+
+    private ExecutorService coordinator;
+    private ExecutorService workers;
+    private int workerCount;
+
+    @PostConstruct
+    void init() {
+        workerCount = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        coordinator = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "key-rotation"));
+        AtomicInteger counter = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount,
+                runnable -> daemon(runnable, "key-rotation-worker-" + counter.incrementAndGet()));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Прерванное задание остаётся RUNNING и продолжится со своей контрольной точки
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    public KeyRotationJobResponse startRotation() {
+        KeyRotationJob job;
+        try {
+            job = transactionTemplate.execute(status -> {
+                if (keyRotationJobRepository.existsByStatus(KeyRotationStatus.RUNNING)) {
+                    throw new ConflictException("Key rotation is already running");
+                }
+                EncryptionKey key = encryptionKeyManager.rotate();
+
+                LocalDateTime now = LocalDateTime.now();
+                KeyRotationJob newJob = new KeyRotationJob();
+                newJob.setTargetKeyId(key.getId());
+                newJob.setStatus(KeyRotationStatus.RUNNING);
+                // count(*) по большой таблице дорогой, для прогресса достаточно оценки из статистики
+                newJob.setTotal(jdbcTemplate.queryForObject(
+                        "SELECT GREATEST(reltuples, 0)::bigint FROM pg_class WHERE relname = 'cards'", Long.class));
+                newJob.setStartedAt(now);
+                newJob.setUpdatedAt(now);
+                return keyRotationJobRepository.saveAndFlush(newJob);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Параллельный запуск: уникальный индекс допускает только одно RUNNING-задание
+            throw new ConflictException("Key rotation is already running");
+        }
+
+        encryptionKeyManager.reload();
+        submit(job.getId());
+        return mapToResponse(job);
+    }
+
+    public KeyRotationJobResponse getJob(Long id) {
+        KeyRotationJob job = keyRotationJobRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Key rotation job not found with id: " + id));
+        return mapToResponse(job);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        for (KeyRotationJob job : keyRotationJobRepository.findByStatus(KeyRotationStatus.RUNNING)) {
+            log.info("Resuming key rotation job {} from card id {}", job.getId(), job.getLastCardId());
+            submit(job.getId());
+        }
+    }
+
+    private void submit(Long jobId) {
+        coordinator.execute(() -> {
+            try {
+                run(jobId);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                if (coordinator.isShutdown()) {
+                    return;
+                }
+                log.error("Key rotation job {} failed", jobId, e);
+                finish(jobId, KeyRotationStatus.FAILED, e.getMessage());
+            }
+        });
+    }
+
+    private void run(Long jobId) throws InterruptedException {
+        KeyRotationJob job = keyRotationJobRepository.findById(jobId).orElseThrow();
+        int keyId = job.getTargetKeyId();
+
+        // Пока остальные инстансы не перечитали ключи, они могут шифровать новые карты старым ключом.
+        // Ждём один интервал обновления, чтобы такие карты попали в проход
+        long waitMillis = Duration.between(LocalDateTime.now(), job.getStartedAt().plus(keyRefreshInterval)).toMillis();
+        if (waitMillis > 0) {
+            Thread.sleep(waitMillis);
+        }
+
+        long cursor = job.getLastCardId();
+        while (!Thread.currentThread().isInterrupted()) {
+            List<CardSecrets> chunk = jdbcTemplate.query(SELECT_CHUNK,
+                    (rs, rowNum) -> new CardSecrets(rs.getLong("id"), rs.getString("card_number"),
+                            rs.getString("ccv"), rs.getString("pin_code")),
+                    cursor, chunkSize);
+            if (chunk.isEmpty()) {
+                finish(jobId, KeyRotationStatus.COMPLETED, null);
+                log.info("Key rotation job {} completed", jobId);
+                return;
+            }
+
+            AtomicInteger failed = new AtomicInteger();
+            List<CardSecrets> reencrypted = reencrypt(chunk, keyId, failed);
+            long from = cursor;
+            long to = chunk.get(chunk.size() - 1).id();
+
+            Boolean advanced = transactionTemplate.execute(status -> {
+                if (!reencrypted.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPDATE_CARD, reencrypted, reencrypted.size(), (ps, card) -> {
+                        ps.setString(1, card.cardNumber());
+                        ps.setString(2, card.ccv());
+                        ps.setString(3, card.pinCode());
+                        ps.setLong(4, card.id());
+                    });
+                }
+                if (keyRotationJobRepository.advance(jobId, from, to, chunk.size(), failed.get()) == 0) {
+                    status.setRollbackOnly();
+                    return false;
+                }
+                return true;
+            });
+            if (!Boolean.TRUE.equals(advanced)) {
+                log.warn("Key rotation job {} was advanced elsewhere or is no longer running, stopping", jobId);
+                return;
+            }
+            cursor = to;
+        }
+    }
+
+    private List<CardSecrets> reencrypt(List<CardSecrets> chunk, int keyId, AtomicInteger failed) {
+        int sliceSize = (chunk.size() + workerCount - 1) / workerCount;
+        List<CompletableFuture<List<CardSecrets>>> slices = new ArrayList<>();
+        for (int start = 0; start < chunk.size(); start += sliceSize) {
+            List<CardSecrets> slice = chunk.subList(start, Math.min(start + sliceSize, chunk.size()));
+            slices.add(CompletableFuture.supplyAsync(() -> reencryptSlice(slice, keyId, failed), workers));
+        }
+
+        List<CardSecrets> result = new ArrayList<>(chunk.size());
+        slices.forEach(slice -> result.addAll(slice.join()));
+        return result;
+    }
+
+    private List<CardSecrets> reencryptSlice(List<CardSecrets> slice, int keyId, AtomicInteger failed) {
+        List<CardSecrets> result = new ArrayList<>(slice.size());
+        for (CardSecrets card : slice) {
+            if (cardDataEncryptor.isEncryptedWith(card.cardNumber(), keyId)
+                    && cardDataEncryptor.isEncryptedWith(card.ccv(), keyId)
+                    && cardDataEncryptor.isEncryptedWith(card.pinCode(), keyId)) {
+                continue;
+            }
+            try {
+                result.add(new CardSecrets(card.id(),
+                        reencryptValue(card.cardNumber(), keyId),
+                        reencryptValue(card.ccv(), keyId),
+                        reencryptValue(card.pinCode(), keyId)));
+            } catch (RuntimeException e) {
+                // Нечитаемая строка не должна останавливать ротацию, она учитывается в failed
+                failed.incrementAndGet();
+                log.warn("Cannot re-encrypt card {}: {}", card.id(), e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    private String reencryptValue(String value, int keyId) {
+        if (cardDataEncryptor.isEncryptedWith(value, keyId)) {
+            return value;
+        }
+        return cardDataEncryptor.encrypt(cardDataEncryptor.decrypt(value), keyId);
+    }
+
+    private void finish(Long jobId, KeyRotationStatus status, String error) {
+        transactionTemplate.executeWithoutResult(tx -> keyRotationJobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(status);
+            job.setError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+            job.setFinishedAt(LocalDateTime.now());
+            job.setUpdatedAt(job.getFinishedAt());
+        }));
+    }
+
+    private KeyRotationJobResponse mapToResponse(KeyRotationJob job) {
+        return new KeyRotationJobResponse(
+                job.getId(),
+                job.getTargetKeyId(),
+                job.getStatus(),
+                job.getProcessed(),
+                job.getFailed(),
+                job.getTotal(),
+                job.getLastCardId(),
+                job.getStartedAt(),
+                job.getUpdatedAt(),
+                job.getFinishedAt(),
+                job.getError()
+        );
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private record CardSecrets(long id, String cardNumber, String ccv, String pinCode) {
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.LedgerEntry;
+import com.example.bankcards.entity.LedgerEntryType;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.repository.TransferRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Журнал переводов пишется только внутри транзакции перевода и сам ничего не сбрасывает в БД:
+// id берутся из sequence пачками, поэтому INSERT'ы уходят одним JDBC batch при коммите
+@Component
+@Transactional(propagation = Propagation.MANDATORY)
+public class LedgerWriter {
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    public Transfer record(Long userId, Card fromCard, Card toCard, BigDecimal amount) {
+        return record(userId, fromCard.getId(), fromCard.getMaskedCard(),
+                toCard.getId(), toCard.getMaskedCard(), amount);
+    }
+
+    public Transfer record(Long userId, Long fromCardId, String fromCardMasked,
+                           Long toCardId, String toCardMasked, BigDecimal amount) {
+        LocalDateTime now = LocalDateTime.now();
+
+        Transfer transfer = new Transfer();
+        transfer.setUserId(userId);
+        transfer.setFromCardId(fromCardId);
+        transfer.setFromCardMasked(fromCardMasked);
+        transfer.setToCardId(toCardId);
+        transfer.setToCardMasked(toCardMasked);
+        transfer.setAmount(amount);
+        transfer.setCreatedAt(now);
+
+        // Двойная запись: списание с одной карты и зачисление на другую на одну сумму
+        transfer.getEntries().add(entry(transfer, fromCardId, LedgerEntryType.DEBIT, amount, now));
+        transfer.getEntries().add(entry(transfer, toCardId, LedgerEntryType.CREDIT, amount, now));
+
+        // persist без flush: id назначается из пула sequence, INSERT откладывается до коммита
+        return transferRepository.save(transfer);
+    }
+
+    private LedgerEntry entry(Transfer transfer, Long cardId, LedgerEntryType type, BigDecimal amount, LocalDateTime now) {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setTransfer(transfer);
+        entry.setCardId(cardId);
+        entry.setEntryType(type);
+        entry.setAmount(amount);
+        entry.setCreatedAt(now);
+        return entry;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.BoundedCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+// username -> id и роль пользователя. Сервисам для проверки владельца карты нужен только id,
+// поэтому сущность User на каждый запрос не загружается
+@Component
+public class PrincipalCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${user.principal-cache.size:10000}")
+    private int cacheSize;
+
+    @Value("${user.principal-cache.ttl:PT5M}")
+    private Duration cacheTtl;
+
+    private BoundedCache<String, Principal> cache;
+    private TransactionTemplate primaryLookup;
+
+    @PostConstruct
+    void init() {
+        cache = new BoundedCache<>(cacheSize, cacheTtl);
+        primaryLookup = new TransactionTemplate(transactionManager);
+        primaryLookup.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public Principal resolve(String username) {
+        Principal cached = cache.get(username);
+        if (cached != null) {
+            return cached;
+        }
+        Principal principal = load(username);
+        cache.put(username, principal);
+        return principal;
+    }
+
+    public Long resolveUserId(String username) {
+        return resolve(username).userId();
+    }
+
+    public void evict(String username) {
+        cache.remove(username);
+    }
+
+    // Промах кэша всегда читается из основной БД: только что созданный и вошедший пользователь
+    // не должен получить 404 из-за отставания реплики. Транзакция на запись читает на месте,
+    // из readOnly-транзакции сервиса (реплика) и вне транзакции - в отдельной транзакции на запись
+    private Principal load(String username) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return find(username);
+        }
+        return primaryLookup.execute(status -> find(username));
+    }
+
+    private Principal find(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+        return new Principal(user.getId(), user.getRole());
+    }
+
+    public record Principal(Long userId, Role role) {
+    }
+}
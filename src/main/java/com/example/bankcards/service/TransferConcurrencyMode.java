@@ -0,0 +1,10 @@
+package com.example.bankcards.service;
+
+public enum TransferConcurrencyMode {
+    // SELECT ... FOR UPDATE, карты блокируются в порядке возрастания id
+    PESSIMISTIC,
+    // Проверка @Version при коммите, конфликт повторяется с backoff
+    OPTIMISTIC,
+    // Списание и зачисление одним условным UPDATE, без предварительного чтения карт
+    CONDITIONAL_UPDATE
+}
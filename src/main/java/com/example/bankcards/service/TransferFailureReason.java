@@ -0,0 +1,40 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.BadRequestException;
+import com.example.bankcards.exception.ConflictException;
+import com.example.bankcards.exception.ResourceNotFoundException;
+
+public enum TransferFailureReason {
+    SAME_CARD("Cannot transfer to the same card"),
+    INVALID_AMOUNT("Transfer amount must be greater than zero"),
+    FROM_CARD_NOT_FOUND("From card not found or does not belong to you"),
+    TO_CARD_NOT_FOUND("To card not found or does not belong to you"),
+    FROM_CARD_INACTIVE("From card is not active or expired"),
+    TO_CARD_INACTIVE("To card is not active or expired"),
+    INSUFFICIENT_BALANCE("Insufficient balance"),
+    CONCURRENT_MODIFICATION("Card balance was changed concurrently, please retry the transfer"),
+    // Только в пакетном переводе: чанк откатился целиком, перевод не применён
+    CHUNK_ROLLED_BACK("Transfer was not applied because its chunk was rolled back, please retry");
+
+    private final String message;
+
+    TransferFailureReason(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public RuntimeException toException() {
+        switch (this) {
+            case FROM_CARD_NOT_FOUND:
+            case TO_CARD_NOT_FOUND:
+                return new ResourceNotFoundException(message);
+            case CONCURRENT_MODIFICATION:
+                return new ConflictException(message);
+            default:
+                return new BadRequestException(message);
+        }
+    }
+}
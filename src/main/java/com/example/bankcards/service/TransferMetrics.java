@@ -0,0 +1,65 @@
+package com.example.bankcards.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+// Счётчик bank.transfers по исходу перевода: operation (single/batch), outcome (success/failure/replay)
+// и reason (TransferFailureReason для отказов). Все серии регистрируются заранее, нулевые тоже видны в выгрузке
+@Component
+public class TransferMetrics {
+
+    public static final String SINGLE = "single";
+    public static final String BATCH = "batch";
+
+    private static final String NAME = "bank.transfers";
+    private static final String NO_REASON = "NONE";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Counter> successes = new HashMap<>();
+    private final Map<String, Map<TransferFailureReason, Counter>> failures = new HashMap<>();
+    private Counter replays;
+
+    @PostConstruct
+    void init() {
+        for (String operation : new String[]{SINGLE, BATCH}) {
+            successes.put(operation, counter(operation, "success", NO_REASON));
+            Map<TransferFailureReason, Counter> byReason = new EnumMap<>(TransferFailureReason.class);
+            for (TransferFailureReason reason : TransferFailureReason.values()) {
+                byReason.put(reason, counter(operation, "failure", reason.name()));
+            }
+            failures.put(operation, byReason);
+        }
+        replays = counter(SINGLE, "replay", NO_REASON);
+    }
+
+    public void success(String operation) {
+        successes.get(operation).increment();
+    }
+
+    public void failure(String operation, TransferFailureReason reason) {
+        failures.get(operation).get(reason).increment();
+    }
+
+    // Повтор с тем же Idempotency-Key: ответ из журнала, новый перевод не выполнялся
+    public void replay() {
+        replays.increment();
+    }
+
+    private Counter counter(String operation, String outcome, String reason) {
+        return Counter.builder(NAME)
+                .description("Transfers by outcome and failure reason")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
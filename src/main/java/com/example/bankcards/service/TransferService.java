@@ -1,64 +1,326 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.BatchTransferItemResult;
+import com.example.bankcards.dto.BatchTransferResponse;
 import com.example.bankcards.dto.TransferRequest;
 import com.example.bankcards.dto.TransferResponse;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Transfer;
 import com.example.bankcards.exception.BadRequestException;
-import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.exception.ConflictException;
 import com.example.bankcards.repository.CardRepository;
-import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.CardRepository.TransferredCard;
+import com.example.bankcards.repository.TransferRepository;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 @Transactional
+@Timed("bank.service")
 public class TransferService {
     
+    private static final Logger log = LoggerFactory.getLogger(TransferService.class);
+    
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    
     @Autowired
     private CardRepository cardRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private PrincipalCache principalCache;
+    
+    @Autowired
+    private LedgerWriter ledgerWriter;
+    
+    @Autowired
+    private TransferRepository transferRepository;
+    
+    @Autowired
+    private IdempotencyKeyStore idempotencyKeyStore;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private TransferMetrics transferMetrics;
     
+    @Value("${transfer.concurrency-mode:CONDITIONAL_UPDATE}")
+    private TransferConcurrencyMode concurrencyMode;
+    
+    @Value("${transfer.optimistic.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Value("${transfer.optimistic.backoff-ms:5}")
+    private long backoffMs;
+    
+    @Value("${transfer.batch.chunk-size:500}")
+    private int batchChunkSize;
+    
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public TransferResponse transferBetweenOwnCards(TransferRequest request, String username) {
-        // Получаем пользователя
-        var user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+        return transferBetweenOwnCards(request, username, null);
+    }
+    
+    // Транзакцией управляем вручную: в оптимистичном режиме каждая попытка идёт в своей транзакции
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TransferResponse transferBetweenOwnCards(TransferRequest request, String username, String idempotencyKey) {
+        if (idempotencyKey != null) {
+            if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+                throw new BadRequestException("Idempotency-Key must be 1-" + MAX_IDEMPOTENCY_KEY_LENGTH + " characters long");
+            }
+            TransferResponse stored = findStoredResponse(username, idempotencyKey);
+            if (stored != null) {
+                return replay(stored, request);
+            }
+        }
         
-        // Получаем карты
-        Card fromCard = cardRepository.findByIdAndUser(request.getFromCardId(), user)
-                .orElseThrow(() -> new ResourceNotFoundException("From card not found or does not belong to you"));
+        Attempt attempt = concurrencyMode == TransferConcurrencyMode.OPTIMISTIC
+                ? transferWithRetry(request, username, idempotencyKey)
+                : transactionTemplate.execute(status -> executeOnce(request, username, idempotencyKey));
         
-        Card toCard = cardRepository.findByIdAndUser(request.getToCardId(), user)
-                .orElseThrow(() -> new ResourceNotFoundException("To card not found or does not belong to you"));
+        if (attempt.replayed()) {
+            return replay(attempt.response(), request);
+        }
+        if (idempotencyKey != null) {
+            idempotencyKeyStore.remember(username, idempotencyKey, attempt.response());
+        }
+        transferMetrics.success(TransferMetrics.SINGLE);
+        return attempt.response();
+    }
+    
+    // Пакетный перевод: валидация без БД, затем чанки по chunkSize переводов, каждый в своей транзакции.
+    // Ошибка отдельного перевода не прерывает пакет и попадает в результат по его индексу.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchTransferResponse transferBatch(List<TransferRequest> requests, String username) {
+        Long userId = principalCache.resolveUserId(username);
         
-        // Проверяем, что карты разные
-        if (fromCard.getId().equals(toCard.getId())) {
-            throw new BadRequestException("Cannot transfer to the same card");
+        BatchTransferItemResult[] results = new BatchTransferItemResult[requests.size()];
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            if (request.getFromCardId().equals(request.getToCardId())) {
+                results[i] = failed(i, TransferFailureReason.SAME_CARD);
+            } else if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+                results[i] = failed(i, TransferFailureReason.INVALID_AMOUNT);
+            } else {
+                pending.add(i);
+            }
         }
         
-        // Проверяем статус карт
-        if (fromCard.getStatus() != CardStatus.ACTIVE || fromCard.isExpired()) {
-            throw new BadRequestException("From card is not active or expired");
+        for (int from = 0; from < pending.size(); from += batchChunkSize) {
+            List<Integer> chunk = pending.subList(from, Math.min(from + batchChunkSize, pending.size()));
+            try {
+                List<BatchTransferItemResult> chunkResults =
+                        transactionTemplate.execute(status -> applyChunk(chunk, requests, userId));
+                chunkResults.forEach(result -> results[result.getIndex()] = result);
+            } catch (RuntimeException e) {
+                // Чанк откатился целиком: ни один перевод из него не применён. Текст исключения
+                // (SQL, имена таблиц) остаётся в логе, клиент получает только причину
+                log.error("Batch transfer chunk of {} transfers rolled back", chunk.size(), e);
+                for (int index : chunk) {
+                    results[index] = failed(index, TransferFailureReason.CHUNK_ROLLED_BACK);
+                }
+            }
         }
         
-        if (toCard.getStatus() != CardStatus.ACTIVE || toCard.isExpired()) {
-            throw new BadRequestException("To card is not active or expired");
+        int succeeded = 0;
+        for (BatchTransferItemResult result : results) {
+            if ("SUCCESS".equals(result.getStatus())) {
+                succeeded++;
+            }
+        }
+        recordBatchOutcomes(results);
+        return new BatchTransferResponse(results.length, succeeded, results.length - succeeded, Arrays.asList(results));
+    }
+    
+    private List<BatchTransferItemResult> applyChunk(List<Integer> chunk, List<TransferRequest> requests, Long userId) {
+        // Все карты чанка одним IN-запросом, с блокировкой в порядке id
+        Set<Long> cardIds = new TreeSet<>();
+        for (int index : chunk) {
+            cardIds.add(requests.get(index).getFromCardId());
+            cardIds.add(requests.get(index).getToCardId());
+        }
+        Map<Long, Card> cards = new HashMap<>();
+        for (Card card : cardRepository.findAllByUserIdAndIdInForUpdate(userId, cardIds)) {
+            cards.put(card.getId(), card);
+        }
+        
+        // Переводы применяются к картам в памяти по порядку; балансы и журнал уйдут
+        // в БД пачками UPDATE/INSERT при коммите чанка
+        List<BatchTransferItemResult> chunkResults = new ArrayList<>(chunk.size());
+        for (int index : chunk) {
+            TransferRequest request = requests.get(index);
+            Card fromCard = cards.get(request.getFromCardId());
+            Card toCard = cards.get(request.getToCardId());
+            
+            TransferFailureReason failure;
+            if (fromCard == null) {
+                failure = TransferFailureReason.FROM_CARD_NOT_FOUND;
+            } else if (toCard == null) {
+                failure = TransferFailureReason.TO_CARD_NOT_FOUND;
+            } else {
+                failure = checkCards(fromCard, toCard, request.getAmount());
+            }
+            if (failure != null) {
+                chunkResults.add(failed(index, failure));
+                continue;
+            }
+            
+            fromCard.setBalance(fromCard.getBalance().subtract(request.getAmount()));
+            toCard.setBalance(toCard.getBalance().add(request.getAmount()));
+            Transfer transfer = ledgerWriter.record(userId, fromCard, toCard, request.getAmount());
+            chunkResults.add(new BatchTransferItemResult(index, "SUCCESS", mapToResponse(transfer), null, null));
+        }
+        return chunkResults;
+    }
+    
+    private void recordBatchOutcomes(BatchTransferItemResult[] results) {
+        for (BatchTransferItemResult result : results) {
+            if ("SUCCESS".equals(result.getStatus())) {
+                transferMetrics.success(TransferMetrics.BATCH);
+            } else {
+                transferMetrics.failure(TransferMetrics.BATCH, TransferFailureReason.valueOf(result.getReason()));
+            }
+        }
+    }
+    
+    // Отказ одиночного перевода: учитывается в метриках по причине и бросается вызывающим
+    private RuntimeException rejected(TransferFailureReason reason) {
+        transferMetrics.failure(TransferMetrics.SINGLE, reason);
+        return reason.toException();
+    }
+    
+    private BatchTransferItemResult failed(int index, TransferFailureReason reason) {
+        return new BatchTransferItemResult(index, "FAILED", null, reason.name(), reason.getMessage());
+    }
+    
+    private Attempt transferWithRetry(TransferRequest request, String username, String idempotencyKey) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> executeOnce(request, username, idempotencyKey));
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw rejected(TransferFailureReason.CONCURRENT_MODIFICATION);
+                }
+                backoff(attempt);
+            }
+        }
+    }
+    
+    private Attempt executeOnce(TransferRequest request, String username, String idempotencyKey) {
+        // Ключ занимается первым, до движения денег. Параллельный запрос с тем же ключом ждёт на вставке,
+        // пока первая транзакция не завершится: после коммита он получает сохранённый перевод,
+        // после отката (перевод не состоялся) занимает ключ сам
+        if (idempotencyKey != null && !idempotencyKeyStore.claim(username, idempotencyKey)) {
+            TransferResponse stored = findStoredResponse(username, idempotencyKey);
+            if (stored == null) {
+                throw new ConflictException("Transfer with this Idempotency-Key is already in progress");
+            }
+            return new Attempt(stored, true);
+        }
+        
+        TransferResponse response = concurrencyMode == TransferConcurrencyMode.CONDITIONAL_UPDATE
+                ? doConditionalTransfer(request, username)
+                : doTransfer(request, username);
+        
+        // Id перевода пишется в ту же транзакцию: ключ без перевода не закоммитится
+        if (idempotencyKey != null) {
+            idempotencyKeyStore.complete(username, idempotencyKey, response.getTransferId());
+        }
+        return new Attempt(response, false);
+    }
+    
+    private TransferResponse findStoredResponse(String username, String idempotencyKey) {
+        TransferResponse cached = idempotencyKeyStore.getCached(username, idempotencyKey);
+        if (cached != null) {
+            return cached;
+        }
+        // Ключ и перевод читаются в одной транзакции на запись, то есть из основной БД:
+        // с реплики только что закоммиченный перевод мог бы ещё не прийти
+        TransferResponse stored = transactionTemplate.execute(status ->
+                idempotencyKeyStore.findTransferId(username, idempotencyKey)
+                        .flatMap(transferRepository::findById)
+                        .map(this::mapToResponse)
+                        .orElse(null));
+        if (stored != null) {
+            idempotencyKeyStore.remember(username, idempotencyKey, stored);
+        }
+        return stored;
+    }
+    
+    // Повтор с тем же ключом, но другим телом запроса - ошибка клиента, а не повтор
+    private TransferResponse replay(TransferResponse stored, TransferRequest request) {
+        if (!stored.getFromCardId().equals(request.getFromCardId())
+                || !stored.getToCardId().equals(request.getToCardId())
+                || stored.getAmount().compareTo(request.getAmount()) != 0) {
+            throw new BadRequestException("Idempotency-Key has already been used for a different transfer");
+        }
+        transferMetrics.replay();
+        return stored;
+    }
+    
+    private void backoff(int attempt) {
+        // Экспоненциальная задержка с джиттером, чтобы конкурирующие попытки разошлись во времени
+        long delay = backoffMs << Math.min(attempt - 1, 6);
+        try {
+            Thread.sleep(delay + ThreadLocalRandom.current().nextLong(delay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Transfer was interrupted while waiting for retry");
+        }
+    }
+    
+    private TransferResponse doTransfer(TransferRequest request, String username) {
+        // Получаем id пользователя
+        Long userId = principalCache.resolveUserId(username);
+        
+        // Проверяем, что карты разные
+        if (request.getFromCardId().equals(request.getToCardId())) {
+            throw rejected(TransferFailureReason.SAME_CARD);
+        }
+        
+        // Получаем карты. В пессимистичном режиме блокируем их всегда в порядке возрастания id,
+        // чтобы встречные переводы A→B и B→A не могли взять блокировки крест-накрест
+        boolean lock = concurrencyMode == TransferConcurrencyMode.PESSIMISTIC;
+        Card fromCard;
+        Card toCard;
+        if (request.getFromCardId() < request.getToCardId()) {
+            fromCard = findOwnCard(request.getFromCardId(), userId, lock, TransferFailureReason.FROM_CARD_NOT_FOUND);
+            toCard = findOwnCard(request.getToCardId(), userId, lock, TransferFailureReason.TO_CARD_NOT_FOUND);
+        } else {
+            toCard = findOwnCard(request.getToCardId(), userId, lock, TransferFailureReason.TO_CARD_NOT_FOUND);
+            fromCard = findOwnCard(request.getFromCardId(), userId, lock, TransferFailureReason.FROM_CARD_NOT_FOUND);
         }
         
-        // Проверяем баланс
-        if (fromCard.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new BadRequestException("Insufficient balance");
+        // Проверяем статус карт и баланс
+        TransferFailureReason failure = checkCards(fromCard, toCard, request.getAmount());
+        if (failure != null) {
+            throw rejected(failure);
         }
         
         // Проверяем, что сумма положительная
         if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
-            throw new BadRequestException("Transfer amount must be greater than zero");
+            throw rejected(TransferFailureReason.INVALID_AMOUNT);
         }
         
         // Выполняем перевод
@@ -68,17 +330,94 @@ public class TransferService {
         cardRepository.save(fromCard);
         cardRepository.save(toCard);
         
-        // В реальном приложении здесь должна быть запись о транзакции в отдельной таблице
-        // Для демо используем простой ответ
+        // Записываем перевод в журнал, id перевода берём из него
+        Transfer transfer = ledgerWriter.record(userId, fromCard, toCard, request.getAmount());
         
+        return mapToResponse(transfer);
+    }
+    
+    private TransferResponse doConditionalTransfer(TransferRequest request, String username) {
+        Long userId = principalCache.resolveUserId(username);
+        
+        if (request.getFromCardId().equals(request.getToCardId())) {
+            throw rejected(TransferFailureReason.SAME_CARD);
+        }
+        if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw rejected(TransferFailureReason.INVALID_AMOUNT);
+        }
+        
+        // Все проверки делает сам UPDATE, карты заранее не читаем
+        List<TransferredCard> updated = cardRepository.applyTransfer(
+                request.getFromCardId(), request.getToCardId(), userId, request.getAmount());
+        
+        if (updated.size() < 2) {
+            // Исключение откатывает транзакцию, в том числе частично применённое изменение одной карты
+            throw rejected(diagnoseFailure(request, userId));
+        }
+        
+        String fromMasked = null;
+        String toMasked = null;
+        for (TransferredCard card : updated) {
+            if (card.getId().equals(request.getFromCardId())) {
+                fromMasked = card.getMaskedCard();
+            } else {
+                toMasked = card.getMaskedCard();
+            }
+        }
+        
+        Transfer transfer = ledgerWriter.record(userId,
+                request.getFromCardId(), fromMasked, request.getToCardId(), toMasked, request.getAmount());
+        return mapToResponse(transfer);
+    }
+    
+    // Вызывается только на неуспешном пути, чтобы вернуть клиенту конкретную причину отказа
+    private TransferFailureReason diagnoseFailure(TransferRequest request, Long userId) {
+        Optional<Card> fromCard = cardRepository.findByIdAndUserId(request.getFromCardId(), userId);
+        if (fromCard.isEmpty()) {
+            return TransferFailureReason.FROM_CARD_NOT_FOUND;
+        }
+        Optional<Card> toCard = cardRepository.findByIdAndUserId(request.getToCardId(), userId);
+        if (toCard.isEmpty()) {
+            return TransferFailureReason.TO_CARD_NOT_FOUND;
+        }
+        TransferFailureReason failure = checkCards(fromCard.get(), toCard.get(), request.getAmount());
+        // Карты в порядке: значит их состояние поменялось между UPDATE и проверкой
+        return failure != null ? failure : TransferFailureReason.CONCURRENT_MODIFICATION;
+    }
+    
+    private TransferFailureReason checkCards(Card fromCard, Card toCard, BigDecimal amount) {
+        if (fromCard.getStatus() != CardStatus.ACTIVE || fromCard.isExpired()) {
+            return TransferFailureReason.FROM_CARD_INACTIVE;
+        }
+        if (toCard.getStatus() != CardStatus.ACTIVE || toCard.isExpired()) {
+            return TransferFailureReason.TO_CARD_INACTIVE;
+        }
+        if (fromCard.getBalance().compareTo(amount) < 0) {
+            return TransferFailureReason.INSUFFICIENT_BALANCE;
+        }
+        return null;
+    }
+    
+    private Card findOwnCard(Long id, Long userId, boolean lock, TransferFailureReason notFound) {
+        var card = lock
+                ? cardRepository.findByIdAndUserIdForUpdate(id, userId)
+                : cardRepository.findByIdAndUserId(id, userId);
+        return card.orElseThrow(() -> rejected(notFound));
+    }
+    
+    // Результат попытки перевода: новый перевод или сохранённый по ключу идемпотентности
+    private record Attempt(TransferResponse response, boolean replayed) {
+    }
+    
+    private TransferResponse mapToResponse(Transfer transfer) {
         return new TransferResponse(
-                System.currentTimeMillis(), // В реальном приложении это должен быть ID транзакции
-                fromCard.getId(),
-                fromCard.getMaskedCard(),
-                toCard.getId(),
-                toCard.getMaskedCard(),
-                request.getAmount(),
-                LocalDateTime.now(),
+                transfer.getId(),
+                transfer.getFromCardId(),
+                transfer.getFromCardMasked(),
+                transfer.getToCardId(),
+                transfer.getToCardMasked(),
+                transfer.getAmount(),
+                transfer.getCreatedAt(),
                 "SUCCESS"
         );
     }
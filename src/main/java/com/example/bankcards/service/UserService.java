@@ -1,29 +1,58 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.CursorPageResponse;
+import com.example.bankcards.dto.PageResponse;
 import com.example.bankcards.dto.UserCreateRequest;
 import com.example.bankcards.dto.UserResponse;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.BadRequestException;
 import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.TokenRevocationRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
+@Timed("bank.service")
 public class UserService {
     
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+    
     @Autowired
     private UserRepository userRepository;
     
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private TokenRevocationRegistry tokenRevocationRegistry;
+    
+    @Autowired
+    private PrincipalCache principalCache;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     public UserResponse createUser(UserCreateRequest request) {
         if (userRepository.existsByUsername(request.getUsername())) {
             throw new BadRequestException("Username already exists");
@@ -48,30 +77,102 @@ public class UserService {
         return mapToResponse(savedUser);
     }
     
+    @Transactional(readOnly = true)
     public UserResponse getUserById(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
         return mapToResponse(user);
     }
     
-    public List<UserResponse> getAllUsers() {
-        return userRepository.findAll().stream()
+    @Transactional(readOnly = true)
+    public PageResponse<UserResponse> getAllUsers(int page, int size) {
+        checkPageSize(size);
+        Page<User> userPage = userRepository.findAll(PageRequest.of(page, size, Sort.by("id")));
+        
+        List<UserResponse> content = userPage.getContent().stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
+        
+        return new PageResponse<>(
+                content,
+                userPage.getNumber(),
+                userPage.getSize(),
+                userPage.getTotalElements(),
+                userPage.getTotalPages(),
+                userPage.isLast()
+        );
     }
     
-    public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new ResourceNotFoundException("User not found with id: " + id);
+    // Keyset-пагинация по id: курсор - id последнего пользователя предыдущей страницы, пустой - первая страница
+    @Transactional(readOnly = true)
+    public CursorPageResponse<UserResponse> getUsersByCursor(String cursor, int size) {
+        checkPageSize(size);
+        long afterId = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                afterId = Long.parseLong(cursor);
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Invalid cursor");
+            }
         }
-        userRepository.deleteById(id);
+        
+        // На одну запись больше: так без COUNT понятно, есть ли следующая страница
+        List<UserResponse> users = userRepository.findPageAfter(afterId, PageRequest.of(0, size + 1));
+        boolean hasNext = users.size() > size;
+        List<UserResponse> content = hasNext ? users.subList(0, size) : users;
+        String nextCursor = hasNext ? String.valueOf(content.get(content.size() - 1).getId()) : null;
+        return new CursorPageResponse<>(content, content.size(), nextCursor, hasNext);
     }
     
+    // Все пользователи в NDJSON по одному через серверный курсор: память не зависит от размера таблицы.
+    // Как и CardExportService, пишет через буфер, сам поток ответа закрывает контейнер
+    @Transactional(readOnly = true)
+    public void exportAllUsers(OutputStream target) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE);
+        try (Stream<UserResponse> users = userRepository.streamAll()) {
+            users.forEach(user -> {
+                try {
+                    writer.write(objectMapper.writeValueAsString(user));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Клиент оборвал соединение - курсор закрыт, транзакция откатится
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+    
+    public void deleteUser(Long id) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+        userRepository.delete(user);
+        // Уже выданные токены удалённого пользователя больше не принимаются
+        tokenRevocationRegistry.revoke(user.getUsername());
+        principalCache.evict(user.getUsername());
+    }
+    
+    public void revokeTokens(Long id) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+        tokenRevocationRegistry.revoke(user.getUsername());
+    }
+    
+    // Загруженная сущность: вызывающий может читать поля и вне транзакции
+    @Transactional(readOnly = true)
     public User getUserByUsername(String username) {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
     }
     
+    private void checkPageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+    
     private UserResponse mapToResponse(User user) {
         return new UserResponse(
                 user.getId(),
@@ -0,0 +1,145 @@
+package com.example.bankcards.util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ограниченный по размеру кэш с временем жизни записей.
+ * Ключи разбиты по сегментам со своей блокировкой (lock striping), внутри сегмента -
+ * LinkedHashMap в порядке доступа, так что get/put стоят O(1), а при переполнении
+ * вытесняется давно не использованная запись этого сегмента.
+ * Сегменты блокируются ReentrantLock, а не synchronized: виртуальный поток, ждущий монитор,
+ * на Java 21 держит поток-носитель, а кэш стоит на пути каждого запроса.
+ */
+public class BoundedCache<K, V> {
+
+    private static final int DEFAULT_SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+    private final long ttlMillis;
+
+    public BoundedCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, DEFAULT_SEGMENTS);
+    }
+
+    @SuppressWarnings("unchecked")
+    public BoundedCache(int maxSize, Duration ttl, int concurrencyLevel) {
+        int segmentCount = Integer.highestOneBit(Math.max(1, Math.min(concurrencyLevel, maxSize)));
+        int segmentCapacity = Math.max(1, maxSize / segmentCount);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentCapacity);
+        }
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    public V get(K key) {
+        return segmentFor(key).get(key, System.currentTimeMillis());
+    }
+
+    public void put(K key, V value) {
+        put(key, value, System.currentTimeMillis() + ttlMillis);
+    }
+
+    // Запись живёт до указанного момента, но не дольше ttl кэша
+    public void put(K key, V value, long expiresAtMillis) {
+        long expiresAt = Math.min(expiresAtMillis, System.currentTimeMillis() + ttlMillis);
+        segmentFor(key).put(key, value, expiresAt);
+    }
+
+    public void remove(K key) {
+        segmentFor(key).remove(key);
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[hash & (segments.length - 1)];
+    }
+
+    private static final class Segment<K, V> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<K, CachedValue<V>> entries;
+
+        Segment(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        V get(K key, long now) {
+            lock.lock();
+            try {
+                CachedValue<V> entry = entries.get(key);
+                if (entry == null) {
+                    return null;
+                }
+                if (entry.expiresAt() <= now) {
+                    entries.remove(key);
+                    return null;
+                }
+                return entry.value();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void put(K key, V value, long expiresAt) {
+            lock.lock();
+            try {
+                entries.put(key, new CachedValue<>(value, expiresAt));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(K key) {
+            lock.lock();
+            try {
+                entries.remove(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                entries.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return entries.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private record CachedValue<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.bankcards.util;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Разбор строки поиска карт без привязки к JPA: маска ("**** 12") - начало last_four, цифры без маски -
+// подстрока last_four или полный номер, остальное - подстрока в lower(card_holder_name)
+public final class CardSearchQuery {
+
+    private static final Pattern MASKED_QUERY = Pattern.compile("[\\d* ]*\\*[ ]*(\\d{1,4})");
+    private static final Pattern DIGITS_QUERY = Pattern.compile("[\\d ]+");
+
+    private CardSearchQuery() {
+    }
+
+    // Цифры после маски - начало последних четырёх: "**** **** **** 1234" -> "1234", "**** 12" -> "12";
+    // null без маски или если после маски не 1-4 цифры
+    public static String lastFourPrefix(String query) {
+        Matcher matcher = MASKED_QUERY.matcher(query.trim());
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    // Цифры без маски, пробелы убраны: "4276 1234 5678 9012" -> "4276123456789012", "34" -> "34";
+    // null, если в строке есть что-то кроме цифр и пробелов
+    public static String cardDigits(String query) {
+        String trimmed = query.trim();
+        if (!DIGITS_QUERY.matcher(trimmed).matches()) {
+            return null;
+        }
+        return trimmed.replace(" ", "");
+    }
+
+    // Шаблон LIKE в нижнем регистре, спецсимволы экранированы '\'
+    public static String holderNamePattern(String query) {
+        return "%" + escapeLike(query.trim().toLowerCase(Locale.ROOT)) + "%";
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -6,7 +6,8 @@ import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.Base64;
 
-
+// Старый формат (AES/ECB, ключ в коде). Новые значения шифрует CardDataEncryptor,
+// здесь остаётся чтение ранее записанных строк
 public class EncryptionUtil {
     
     private static final String ALGORITHM = "AES";
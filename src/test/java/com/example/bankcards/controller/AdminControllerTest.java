@@ -1,22 +1,37 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.BulkCardIssueRequest;
+import com.example.bankcards.dto.BulkCardIssueResponse;
 import com.example.bankcards.dto.CardCreateRequest;
+import com.example.bankcards.dto.CardExportFormat;
+import com.example.bankcards.dto.CardFilter;
 import com.example.bankcards.dto.CardResponse;
+import com.example.bankcards.dto.CursorPageResponse;
+import com.example.bankcards.dto.KeyRotationJobResponse;
 import com.example.bankcards.dto.PageResponse;
 import com.example.bankcards.dto.UserCreateRequest;
 import com.example.bankcards.dto.UserResponse;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.CardType;
+import com.example.bankcards.exception.ConflictException;
 import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.service.BulkCardIssuanceService;
+import com.example.bankcards.service.CardExportService;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.KeyRotationService;
 import com.example.bankcards.service.UserService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,6 +46,15 @@ class AdminControllerTest {
     @Mock
     private CardService cardService;
 
+    @Mock
+    private BulkCardIssuanceService bulkCardIssuanceService;
+
+    @Mock
+    private KeyRotationService keyRotationService;
+
+    @Mock
+    private CardExportService cardExportService;
+
     @InjectMocks
     private AdminController adminController;
 
@@ -62,29 +86,57 @@ class AdminControllerTest {
     }
 
     @Test
-    void getAllUsers_shouldReturnOkWithList() {
-        List<UserResponse> users = List.of(mock(UserResponse.class));
+    void getAllUsers_shouldReturnOkWithPage() {
+        PageResponse<UserResponse> page = new PageResponse<>(
+                List.of(mock(UserResponse.class)), 0, 20, 1, 1, true);
 
-        when(userService.getAllUsers()).thenReturn(users);
+        when(userService.getAllUsers(0, 20)).thenReturn(page);
 
-        ResponseEntity<List<UserResponse>> responseEntity =
-                adminController.getAllUsers();
+        ResponseEntity<PageResponse<UserResponse>> responseEntity =
+                adminController.getAllUsers(0, 20);
 
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
-        assertEquals(users, responseEntity.getBody());
-        verify(userService).getAllUsers();
+        assertSame(page, responseEntity.getBody());
+        verify(userService).getAllUsers(0, 20);
     }
 
     @Test
-    void getAllUsers_whenEmpty_shouldReturnOkWithEmptyList() {
-        when(userService.getAllUsers()).thenReturn(List.of());
+    void getAllUsers_whenEmpty_shouldReturnOkWithEmptyPage() {
+        when(userService.getAllUsers(0, 20))
+                .thenReturn(new PageResponse<>(List.of(), 0, 20, 0, 0, true));
 
-        ResponseEntity<List<UserResponse>> responseEntity =
-                adminController.getAllUsers();
+        ResponseEntity<PageResponse<UserResponse>> responseEntity =
+                adminController.getAllUsers(0, 20);
 
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertNotNull(responseEntity.getBody());
-        assertTrue(responseEntity.getBody().isEmpty());
+        assertTrue(responseEntity.getBody().getContent().isEmpty());
+    }
+
+    @Test
+    void getUsersByCursor_shouldReturnOkWithCursorPage() {
+        CursorPageResponse<UserResponse> page = new CursorPageResponse<>(
+                List.of(mock(UserResponse.class)), 1, "42", true);
+
+        when(userService.getUsersByCursor("", 1)).thenReturn(page);
+
+        ResponseEntity<CursorPageResponse<UserResponse>> responseEntity =
+                adminController.getUsersByCursor("", 1);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertSame(page, responseEntity.getBody());
+        verify(userService).getUsersByCursor("", 1);
+    }
+
+    @Test
+    void streamUsers_shouldStreamNdjsonFromUserService() throws Exception {
+        ResponseEntity<StreamingResponseBody> responseEntity = adminController.streamUsers();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        responseEntity.getBody().writeTo(out);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals("application/x-ndjson", responseEntity.getHeaders().getContentType().toString());
+        verify(userService).exportAllUsers(out);
     }
 
     @Test
@@ -133,6 +185,27 @@ class AdminControllerTest {
                 () -> adminController.deleteUser(id));
     }
 
+    @Test
+    void revokeTokens_shouldReturn204AndCallService() {
+        Long id = 1L;
+
+        ResponseEntity<Void> responseEntity = adminController.revokeTokens(id);
+
+        assertEquals(HttpStatus.NO_CONTENT, responseEntity.getStatusCode());
+        assertNull(responseEntity.getBody());
+        verify(userService).revokeTokens(id);
+    }
+
+    @Test
+    void revokeTokens_whenNotFound_shouldThrow() {
+        Long id = 1L;
+        doThrow(new ResourceNotFoundException("User not found"))
+                .when(userService).revokeTokens(id);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> adminController.revokeTokens(id));
+    }
+
     // ---------- /cards (admin) ----------
 
     @Test
@@ -163,36 +236,136 @@ class AdminControllerTest {
                 () -> adminController.createCard(userId, request));
     }
 
+    @Test
+    void bulkIssueCards_shouldReturn201AndBody() {
+        BulkCardIssueRequest request = mock(BulkCardIssueRequest.class);
+        BulkCardIssueResponse bulkResponse = mock(BulkCardIssueResponse.class);
+
+        when(bulkCardIssuanceService.issue(request)).thenReturn(bulkResponse);
+
+        ResponseEntity<BulkCardIssueResponse> responseEntity =
+                adminController.bulkIssueCards(request);
+
+        assertEquals(HttpStatus.CREATED, responseEntity.getStatusCode());
+        assertSame(bulkResponse, responseEntity.getBody());
+        verify(bulkCardIssuanceService).issue(request);
+    }
+
+    @Test
+    void bulkIssueCards_whenChunkFailed_shouldReturn500WithCreatedCount() {
+        BulkCardIssueRequest request = mock(BulkCardIssueRequest.class);
+        BulkCardIssueResponse bulkResponse = new BulkCardIssueResponse(3000, 1000, "PARTIAL", "stopped", 12L);
+
+        when(bulkCardIssuanceService.issue(request)).thenReturn(bulkResponse);
+
+        ResponseEntity<BulkCardIssueResponse> responseEntity =
+                adminController.bulkIssueCards(request);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, responseEntity.getStatusCode());
+        assertEquals(1000, responseEntity.getBody().getCreated());
+    }
+
+    @Test
+    void bulkIssueCards_whenUserNotFound_shouldThrow() {
+        BulkCardIssueRequest request = mock(BulkCardIssueRequest.class);
+
+        when(bulkCardIssuanceService.issue(request))
+                .thenThrow(new ResourceNotFoundException("User not found"));
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> adminController.bulkIssueCards(request));
+    }
+
     @Test
     void getAllCards_shouldReturnOkWithPage() {
         int page = 0;
         int size = 10;
         String search = "visa";
         CardStatus status = CardStatus.ACTIVE;
+        CardFilter filter = new CardFilter(search, status, null, null, null, null);
 
         PageResponse<CardResponse> pageResponse = mock(PageResponse.class);
 
-        when(cardService.getAllCards(page, size, search, status))
+        when(cardService.getAllCards(page, size, filter))
                 .thenReturn(pageResponse);
 
         ResponseEntity<PageResponse<CardResponse>> responseEntity =
-                adminController.getAllCards(page, size, search, status);
+                adminController.getAllCards(page, size, search, status, null, null, null, null);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertSame(pageResponse, responseEntity.getBody());
+        verify(cardService).getAllCards(page, size, filter);
+    }
+
+    @Test
+    void getAllCards_shouldPassAllFiltersToService() {
+        LocalDate expiryFrom = LocalDate.of(2025, 1, 1);
+        LocalDate expiryTo = LocalDate.of(2025, 12, 31);
+        CardFilter filter = new CardFilter(null, CardStatus.BLOCKED, CardType.CREDIT, 42L, expiryFrom, expiryTo);
+        PageResponse<CardResponse> pageResponse = mock(PageResponse.class);
+
+        when(cardService.getAllCards(2, 50, filter)).thenReturn(pageResponse);
+
+        ResponseEntity<PageResponse<CardResponse>> responseEntity = adminController.getAllCards(
+                2, 50, null, CardStatus.BLOCKED, CardType.CREDIT, 42L, expiryFrom, expiryTo);
 
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertSame(pageResponse, responseEntity.getBody());
-        verify(cardService).getAllCards(page, size, search, status);
+        verify(cardService).getAllCards(2, 50, filter);
     }
 
     @Test
     void getAllCards_whenServiceThrows_shouldPropagate() {
         int page = 0;
         int size = 10;
+        CardFilter filter = new CardFilter(null, null, null, null, null, null);
 
-        when(cardService.getAllCards(page, size, null, null))
+        when(cardService.getAllCards(page, size, filter))
                 .thenThrow(new IllegalStateException("DB error"));
 
         assertThrows(IllegalStateException.class,
-                () -> adminController.getAllCards(page, size, null, null));
+                () -> adminController.getAllCards(page, size, null, null, null, null, null, null));
+    }
+
+    @Test
+    void getAllCardsByCursor_shouldReturnOkWithCursorPage() {
+        String cursor = "MjAyNC0wMS0wMVQxMDowMHw0Mg";
+        int size = 50;
+        CursorPageResponse<CardResponse> cursorPage = mock(CursorPageResponse.class);
+
+        when(cardService.getAllCardsByCursor(cursor, size, null)).thenReturn(cursorPage);
+
+        ResponseEntity<CursorPageResponse<CardResponse>> responseEntity =
+                adminController.getAllCardsByCursor(cursor, size, null);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertSame(cursorPage, responseEntity.getBody());
+        verify(cardService).getAllCardsByCursor(cursor, size, null);
+    }
+
+    @Test
+    void exportCards_shouldStreamCsvAttachment() throws Exception {
+        ResponseEntity<StreamingResponseBody> responseEntity =
+                adminController.exportCards(CardExportFormat.CSV, CardStatus.ACTIVE, false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        responseEntity.getBody().writeTo(out);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals("text/csv;charset=UTF-8", responseEntity.getHeaders().getContentType().toString());
+        assertEquals("attachment; filename=\"cards.csv\"",
+                responseEntity.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        verify(cardExportService).export(CardExportFormat.CSV, CardStatus.ACTIVE, false, out);
+    }
+
+    @Test
+    void exportCards_withGzip_shouldReturnGzipFile() {
+        ResponseEntity<StreamingResponseBody> responseEntity =
+                adminController.exportCards(CardExportFormat.NDJSON, null, true);
+
+        assertEquals("application/gzip", responseEntity.getHeaders().getContentType().toString());
+        assertEquals("attachment; filename=\"cards.ndjson.gz\"",
+                responseEntity.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        verifyNoInteractions(cardExportService);
     }
 
     @Test
@@ -267,4 +440,42 @@ class AdminControllerTest {
         assertThrows(ResourceNotFoundException.class,
                 () -> adminController.deleteCard(cardId));
     }
-}
\ No newline at end of file
+
+    // ---------- /encryption/rotations ----------
+
+    @Test
+    void startKeyRotation_shouldReturn202AndJob() {
+        KeyRotationJobResponse job = mock(KeyRotationJobResponse.class);
+
+        when(keyRotationService.startRotation()).thenReturn(job);
+
+        ResponseEntity<KeyRotationJobResponse> responseEntity = adminController.startKeyRotation();
+
+        assertEquals(HttpStatus.ACCEPTED, responseEntity.getStatusCode());
+        assertSame(job, responseEntity.getBody());
+        verify(keyRotationService).startRotation();
+    }
+
+    @Test
+    void startKeyRotation_whenAlreadyRunning_shouldThrow() {
+        when(keyRotationService.startRotation())
+                .thenThrow(new ConflictException("Key rotation is already running"));
+
+        assertThrows(ConflictException.class,
+                () -> adminController.startKeyRotation());
+    }
+
+    @Test
+    void getKeyRotation_shouldReturnOkAndJob() {
+        Long jobId = 3L;
+        KeyRotationJobResponse job = mock(KeyRotationJobResponse.class);
+
+        when(keyRotationService.getJob(jobId)).thenReturn(job);
+
+        ResponseEntity<KeyRotationJobResponse> responseEntity = adminController.getKeyRotation(jobId);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertSame(job, responseEntity.getBody());
+        verify(keyRotationService).getJob(jobId);
+    }
+}
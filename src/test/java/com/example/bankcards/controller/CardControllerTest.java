@@ -2,8 +2,10 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CardCreateRequest;
 import com.example.bankcards.dto.CardResponse;
+import com.example.bankcards.dto.CursorPageResponse;
 import com.example.bankcards.dto.PageResponse;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.exception.BadRequestException;
 import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.service.CardService;
 import org.junit.jupiter.api.Test;
@@ -122,6 +124,37 @@ class CardControllerTest {
                 () -> cardController.getUserCards(page, size, null, null, auth));
     }
 
+    @Test
+    void getUserCardsByCursor_shouldReturnOkWithCursorPage() {
+        String cursor = "";
+        int size = 20;
+        Authentication auth = mock(Authentication.class);
+        CursorPageResponse<CardResponse> cursorPage = mock(CursorPageResponse.class);
+
+        when(auth.getName()).thenReturn("user");
+        when(cardService.getUserCardsByCursor("user", cursor, size, CardStatus.ACTIVE))
+                .thenReturn(cursorPage);
+
+        ResponseEntity<CursorPageResponse<CardResponse>> responseEntity =
+                cardController.getUserCardsByCursor(cursor, size, CardStatus.ACTIVE, auth);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertSame(cursorPage, responseEntity.getBody());
+        verify(cardService).getUserCardsByCursor("user", cursor, size, CardStatus.ACTIVE);
+    }
+
+    @Test
+    void getUserCardsByCursor_whenCursorInvalid_shouldThrow() {
+        Authentication auth = mock(Authentication.class);
+
+        when(auth.getName()).thenReturn("user");
+        when(cardService.getUserCardsByCursor("user", "garbage", 10, null))
+                .thenThrow(new BadRequestException("Invalid cursor"));
+
+        assertThrows(BadRequestException.class,
+                () -> cardController.getUserCardsByCursor("garbage", 10, null, auth));
+    }
+
     @Test
     void blockCard_shouldReturnOkWithCard() {
         Long id = 3L;
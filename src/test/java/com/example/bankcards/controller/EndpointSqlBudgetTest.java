@@ -0,0 +1,191 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.monitoring.SqlStatementBudget;
+import com.example.bankcards.security.JwtTokenUtil;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Бюджеты SQL всех эндпоинтов из sql-budgets.properties: весь стек от JWT-фильтра до Hibernate
+// на встроенном PostgreSQL, схема - Liquibase приложения. Тест падает, если число statement выросло.
+// Новый бюджет в файле добавляется вместе с тестом на него
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class EndpointSqlBudgetTest {
+
+    private static final int CARDS = 5;
+    private static final String PASSWORD = "budget-password";
+
+    private static final EmbeddedPostgres postgres = startPostgres();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private String username;
+    private String token;
+    private String adminToken;
+    private final List<Long> cardIds = new ArrayList<>();
+    private Long blockedCardId;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    // Свои пользователи на каждый тест: кэш username -> id пуст, в бюджет попадает и его промах
+    @BeforeEach
+    void seed() {
+        username = "budget_" + UUID.randomUUID().toString().substring(0, 8);
+        Long userId = insertUser(username, "USER");
+        cardIds.clear();
+        for (int i = 0; i < CARDS; i++) {
+            cardIds.add(insertCard(userId, "ACTIVE"));
+        }
+        blockedCardId = insertCard(userId, "BLOCKED");
+        token = jwtTokenUtil.generateToken(username, "USER");
+
+        String admin = "budget_admin_" + UUID.randomUUID().toString().substring(0, 8);
+        insertUser(admin, "ADMIN");
+        adminToken = jwtTokenUtil.generateToken(admin, "ADMIN");
+    }
+
+    @Test
+    void getUserCards_shouldStayWithinSqlBudget() throws Exception {
+        assertWithinBudget("GET /api/cards", get("/api/cards").header("Authorization", "Bearer " + token),
+                status().isOk());
+    }
+
+    @Test
+    void getCardById_shouldStayWithinSqlBudget() throws Exception {
+        assertWithinBudget("GET /api/cards/{id}",
+                get("/api/cards/" + cardIds.get(0)).header("Authorization", "Bearer " + token),
+                status().isOk());
+    }
+
+    @Test
+    void createCard_shouldStayWithinSqlBudget() throws Exception {
+        assertWithinBudget("POST /api/cards", post("/api/cards")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cardHolderName\":\"BUDGET USER\",\"expiryDate\":\"2035-01-01\"}"),
+                status().isCreated());
+    }
+
+    @Test
+    void blockCard_shouldStayWithinSqlBudget() throws Exception {
+        assertWithinBudget("POST /api/cards/{id}/block",
+                post("/api/cards/" + cardIds.get(0) + "/block").header("Authorization", "Bearer " + token),
+                status().isOk());
+    }
+
+    @Test
+    void activateCard_shouldStayWithinSqlBudget() throws Exception {
+        assertWithinBudget("POST /api/cards/{id}/activate",
+                post("/api/cards/" + blockedCardId + "/activate").header("Authorization", "Bearer " + token),
+                status().isOk());
+    }
+
+    @Test
+    void transfer_shouldStayWithinSqlBudget() throws Exception {
+        assertWithinBudget("POST /api/transfers", post("/api/transfers")
+                        .header("Authorization", "Bearer " + token)
+                        .header("Idempotency-Key", UUID.randomUUID().toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fromCardId\":" + cardIds.get(1) + ",\"toCardId\":" + cardIds.get(2)
+                                + ",\"amount\":1.00}"),
+                status().isCreated());
+    }
+
+    @Test
+    void login_shouldStayWithinSqlBudget() throws Exception {
+        assertWithinBudget("POST /api/auth/login", post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}"),
+                status().isOk());
+    }
+
+    @Test
+    void adminGetAllCards_shouldStayWithinSqlBudget() throws Exception {
+        assertWithinBudget("GET /api/admin/cards",
+                get("/api/admin/cards").header("Authorization", "Bearer " + adminToken),
+                status().isOk());
+    }
+
+    @Test
+    void adminGetAllUsers_shouldStayWithinSqlBudget() throws Exception {
+        assertWithinBudget("GET /api/admin/users",
+                get("/api/admin/users").header("Authorization", "Bearer " + adminToken),
+                status().isOk());
+    }
+
+    private void assertWithinBudget(String endpoint, RequestBuilder request, ResultMatcher expectedStatus)
+            throws Exception {
+        MvcResult result = mockMvc.perform(request).andExpect(expectedStatus).andReturn();
+        SqlStatementBudget.assertWithinBudget(endpoint, result.getResponse().getHeader("Server-Timing"));
+    }
+
+    private Long insertUser(String name, String role) {
+        return jdbcTemplate.queryForObject("INSERT INTO users (first_name, last_name, phone_number, username, "
+                        + "password, role, created_at, updated_at) "
+                        + "VALUES ('Budget', 'User', ?, ?, ?, ?, now(), now()) RETURNING id",
+                Long.class, "7" + (System.nanoTime() % 10_000_000_000L), name, passwordEncoder.encode(PASSWORD), role);
+    }
+
+    private Long insertCard(Long userId, String status) {
+        String marker = "budget-" + UUID.randomUUID();
+        return jdbcTemplate.queryForObject("INSERT INTO cards (card_number, card_number_hash, masked_card, last_four, "
+                        + "card_holder_name, balance, expiry_date, status, ccv, pin_code, card_type, is_default, "
+                        + "user_id, created_at, update_at, version) "
+                        + "VALUES (?, ?, '**** **** **** 1234', '1234', 'BUDGET USER', 100, current_date + 365, "
+                        + "?, '-', '-', 'DEBIT', false, ?, now(), now(), 0) RETURNING id",
+                Long.class, marker, marker, status, userId);
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot start embedded PostgreSQL", e);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.BatchTransferRequest;
+import com.example.bankcards.dto.BatchTransferResponse;
 import com.example.bankcards.dto.TransferRequest;
 import com.example.bankcards.dto.TransferResponse;
 import com.example.bankcards.service.TransferService;
@@ -12,6 +14,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -31,15 +35,33 @@ class TransferControllerTest {
         TransferResponse transferResponse = mock(TransferResponse.class);
 
         when(auth.getName()).thenReturn("user");
-        when(transferService.transferBetweenOwnCards(request, "user"))
+        when(transferService.transferBetweenOwnCards(request, "user", null))
+                .thenReturn(transferResponse);
+
+        ResponseEntity<TransferResponse> responseEntity =
+                transferController.transfer(request, null, auth);
+
+        assertEquals(HttpStatus.CREATED, responseEntity.getStatusCode());
+        assertSame(transferResponse, responseEntity.getBody());
+        verify(transferService).transferBetweenOwnCards(request, "user", null);
+    }
+
+    @Test
+    void transfer_withIdempotencyKey_shouldPassKeyToService() {
+        TransferRequest request = mock(TransferRequest.class);
+        Authentication auth = mock(Authentication.class);
+        TransferResponse transferResponse = mock(TransferResponse.class);
+
+        when(auth.getName()).thenReturn("user");
+        when(transferService.transferBetweenOwnCards(request, "user", "key-1"))
                 .thenReturn(transferResponse);
 
         ResponseEntity<TransferResponse> responseEntity =
-                transferController.transfer(request, auth);
+                transferController.transfer(request, "key-1", auth);
 
         assertEquals(HttpStatus.CREATED, responseEntity.getStatusCode());
         assertSame(transferResponse, responseEntity.getBody());
-        verify(transferService).transferBetweenOwnCards(request, "user");
+        verify(transferService).transferBetweenOwnCards(request, "user", "key-1");
     }
 
     @Test
@@ -48,10 +70,42 @@ class TransferControllerTest {
         Authentication auth = mock(Authentication.class);
 
         when(auth.getName()).thenReturn("user");
-        when(transferService.transferBetweenOwnCards(request, "user"))
+        when(transferService.transferBetweenOwnCards(request, "user", null))
                 .thenThrow(new IllegalArgumentException("Insufficient balance"));
 
         assertThrows(IllegalArgumentException.class,
-                () -> transferController.transfer(request, auth));
+                () -> transferController.transfer(request, null, auth));
+    }
+
+    @Test
+    void transferBatch_shouldReturnOkWithResults() {
+        List<TransferRequest> transfers = List.of(mock(TransferRequest.class), mock(TransferRequest.class));
+        BatchTransferRequest request = new BatchTransferRequest(transfers);
+        Authentication auth = mock(Authentication.class);
+        BatchTransferResponse batchResponse = mock(BatchTransferResponse.class);
+
+        when(auth.getName()).thenReturn("user");
+        when(transferService.transferBatch(transfers, "user")).thenReturn(batchResponse);
+
+        ResponseEntity<BatchTransferResponse> responseEntity =
+                transferController.transferBatch(request, auth);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertSame(batchResponse, responseEntity.getBody());
+        verify(transferService).transferBatch(transfers, "user");
+    }
+
+    @Test
+    void transferBatch_whenUserNotFound_shouldThrow() {
+        List<TransferRequest> transfers = List.of(mock(TransferRequest.class));
+        BatchTransferRequest request = new BatchTransferRequest(transfers);
+        Authentication auth = mock(Authentication.class);
+
+        when(auth.getName()).thenReturn("user");
+        when(transferService.transferBatch(transfers, "user"))
+                .thenThrow(new IllegalStateException("User not found"));
+
+        assertThrows(IllegalStateException.class,
+                () -> transferController.transferBatch(request, auth));
     }
 }
@@ -0,0 +1,91 @@
+package com.example.bankcards.monitoring;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Проверка числа SQL statement в интеграционных тестах. Бюджеты эндпоинтов лежат в
+ * {@code sql-budgets.properties}: тест падает, если запрос выполнил больше statement, чем записано там.
+ * Если число уменьшилось, бюджет стоит опустить, чтобы следующий рост снова был замечен.
+ * <p>
+ * MockMvc выполняет запрос в потоке теста, статистику можно собрать напрямую:
+ * {@code SqlStatementBudget.assertWithinBudget("GET /api/cards", () -> mockMvc.perform(get("/api/cards")))}.
+ * Для запросов к запущенному серверу (TestRestTemplate, WebTestClient) - по заголовку Server-Timing ответа:
+ * {@code SqlStatementBudget.assertWithinBudget("GET /api/cards", response.getHeaders().getFirst("Server-Timing"))}.
+ */
+public final class SqlStatementBudget {
+
+    private static final String BUDGETS = "/sql-budgets.properties";
+    private static final Pattern SERVER_TIMING_STATEMENTS = Pattern.compile("db;desc=\"(\\d+) statements");
+
+    private SqlStatementBudget() {
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    public static SqlRequestStats assertWithinBudget(String endpoint, Action action) {
+        return assertAtMost(budget(endpoint), endpoint, action);
+    }
+
+    public static void assertWithinBudget(String endpoint, String serverTimingHeader) {
+        if (serverTimingHeader == null) {
+            fail(endpoint + ": response has no Server-Timing header, is app.sql-stats enabled?");
+        }
+        Matcher matcher = SERVER_TIMING_STATEMENTS.matcher(serverTimingHeader);
+        if (!matcher.find()) {
+            fail(endpoint + ": no SQL statistics in Server-Timing header: " + serverTimingHeader);
+        }
+        int statements = Integer.parseInt(matcher.group(1));
+        int budget = budget(endpoint);
+        if (statements > budget) {
+            fail(endpoint + ": " + statements + " SQL statements, budget " + budget);
+        }
+    }
+
+    public static SqlRequestStats assertAtMost(int maxStatements, String description, Action action) {
+        SqlRequestStats stats = SqlRequestStats.start();
+        if (stats == null) {
+            throw new IllegalStateException("SQL statistics are already being collected in this thread");
+        }
+        try {
+            action.run();
+        } catch (Exception e) {
+            throw new IllegalStateException(description + " failed", e);
+        } finally {
+            SqlRequestStats.stop();
+        }
+
+        if (stats.getStatements() > maxStatements) {
+            Map.Entry<String, Integer> repeated = stats.mostRepeated();
+            fail(description + ": " + stats.getStatements() + " SQL statements, budget " + maxStatements
+                    + "; most repeated (" + repeated.getValue() + "x): " + repeated.getKey());
+        }
+        return stats;
+    }
+
+    private static int budget(String endpoint) {
+        Properties budgets = new Properties();
+        try (InputStream in = SqlStatementBudget.class.getResourceAsStream(BUDGETS)) {
+            if (in == null) {
+                throw new IllegalStateException(BUDGETS + " not found on the test classpath");
+            }
+            budgets.load(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + BUDGETS, e);
+        }
+        String value = budgets.getProperty(endpoint);
+        if (value == null) {
+            throw new IllegalStateException("No SQL statement budget for '" + endpoint + "' in " + BUDGETS);
+        }
+        return Integer.parseInt(value.trim());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.bankcards.monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlStatementBudgetTest {
+
+    private final SqlStatementCounter counter = new SqlStatementCounter();
+
+    @Test
+    void assertAtMost_withinBudget_shouldReturnStats() {
+        SqlRequestStats stats = SqlStatementBudget.assertAtMost(2, "list", () -> {
+            counter.inspect("select c from cards c where c.user_id=?");
+            counter.inspect("select count(*) from cards c where c.user_id=?");
+        });
+
+        assertEquals(2, stats.getStatements());
+        assertNull(SqlRequestStats.current());
+    }
+
+    @Test
+    void assertAtMost_overBudget_shouldFailWithRepeatedStatement() {
+        AssertionFailedError error = assertThrows(AssertionFailedError.class,
+                () -> SqlStatementBudget.assertAtMost(2, "list", () -> {
+                    for (int i = 0; i < 3; i++) {
+                        counter.inspect("select * from cards where id=?");
+                    }
+                }));
+
+        assertTrue(error.getMessage().contains("3 SQL statements, budget 2"));
+        assertTrue(error.getMessage().contains("(3x): select * from cards where id=?"));
+        assertNull(SqlRequestStats.current());
+    }
+
+    @Test
+    void assertWithinBudget_fromServerTimingHeader_shouldCompareWithBudgetFile() {
+        SqlStatementBudget.assertWithinBudget("GET /api/cards", "db;desc=\"2 statements, 3 entities\";dur=1.50");
+
+        assertThrows(AssertionFailedError.class, () -> SqlStatementBudget.assertWithinBudget(
+                "GET /api/cards", "db;desc=\"50 statements, 3 entities\";dur=1.50"));
+    }
+
+    @Test
+    void inspect_withoutStartedStats_shouldPassSqlThrough() {
+        assertEquals("select 1", counter.inspect("select 1"));
+        assertNull(SqlRequestStats.current());
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.bankcards.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardDataEncryptorTest {
+
+    private static final String MASTER_KEY = "sLjgyzMDZLiHSyWg8nnmxIMCfYlKahpidlkbPO1uML4=";
+    private static final String INDEX_KEY = "EGLdphr40jka2xAK+gcZPhkln73uWIeHCP/cXlaUv3g=";
+    private static final String CARD_NUMBER = "4276123456789012";
+
+    private CardDataEncryptor encryptor;
+
+    @BeforeEach
+    void setUp() {
+        encryptor = newEncryptor(MASTER_KEY, INDEX_KEY);
+    }
+
+    @Test
+    void encrypt_withoutDataKeys_shouldUseMasterKeyV1() {
+        String encrypted = encryptor.encrypt(CARD_NUMBER);
+
+        assertTrue(encrypted.startsWith(CardDataEncryptor.V1_PREFIX));
+        assertEquals(CARD_NUMBER, encryptor.decrypt(encrypted));
+    }
+
+    @Test
+    void encrypt_sameValueTwice_shouldUseFreshIv() {
+        assertNotEquals(encryptor.encrypt(CARD_NUMBER), encryptor.encrypt(CARD_NUMBER));
+    }
+
+    @Test
+    void encrypt_withActiveDataKey_shouldUseV2AndRoundTrip() {
+        encryptor.installDataKeys(Map.of(7, encryptor.generateDataKey()), 7);
+
+        String encrypted = encryptor.encrypt(CARD_NUMBER);
+
+        assertTrue(encrypted.startsWith("v2:7:"));
+        assertTrue(encryptor.isEncryptedWith(encrypted, 7));
+        assertEquals(CARD_NUMBER, encryptor.decrypt(encrypted));
+    }
+
+    @Test
+    void decrypt_afterRotation_shouldReadOldV2AndV1Values() {
+        SecretKey oldKey = encryptor.generateDataKey();
+        String v1 = encryptor.encrypt("123");
+        encryptor.installDataKeys(Map.of(1, oldKey), 1);
+        String v2Old = encryptor.encrypt("456");
+
+        encryptor.installDataKeys(Map.of(1, oldKey, 2, encryptor.generateDataKey()), 2);
+
+        assertEquals("123", encryptor.decrypt(v1));
+        assertEquals("456", encryptor.decrypt(v2Old));
+        assertTrue(encryptor.encrypt("789").startsWith("v2:2:"));
+    }
+
+    @Test
+    void decrypt_legacyValue_shouldNotBeTreatedAsGcm() {
+        // Без префикса значение уходит в EncryptionUtil (AES/ECB), а не в разбор IV/тега GCM
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> encryptor.decrypt(Base64.getEncoder().encodeToString(new byte[16])));
+
+        assertEquals("Ошибка при дешифровании данных", exception.getMessage());
+    }
+
+    @Test
+    void decrypt_tamperedTag_shouldThrow() {
+        assertTamperRejected(encryptor.encrypt(CARD_NUMBER), CardDataEncryptor.V1_PREFIX);
+
+        encryptor.installDataKeys(Map.of(3, encryptor.generateDataKey()), 3);
+        assertTamperRejected(encryptor.encrypt(CARD_NUMBER), "v2:3:");
+    }
+
+    @Test
+    void decrypt_tamperedCiphertext_shouldThrow() {
+        String encrypted = encryptor.encrypt(CARD_NUMBER);
+        byte[] payload = Base64.getDecoder().decode(encrypted.substring(CardDataEncryptor.V1_PREFIX.length()));
+        payload[12] ^= 0x01;
+
+        assertThrows(RuntimeException.class, () -> encryptor.decrypt(
+                CardDataEncryptor.V1_PREFIX + Base64.getEncoder().encodeToString(payload)));
+    }
+
+    @Test
+    void decrypt_withOtherMasterKey_shouldThrow() {
+        String encrypted = encryptor.encrypt(CARD_NUMBER);
+        CardDataEncryptor other = newEncryptor(randomKey(), INDEX_KEY);
+
+        assertThrows(RuntimeException.class, () -> other.decrypt(encrypted));
+    }
+
+    @Test
+    void decrypt_unknownKeyId_shouldThrow() {
+        encryptor.installDataKeys(Map.of(1, encryptor.generateDataKey()), 1);
+        String encrypted = encryptor.encrypt(CARD_NUMBER);
+        encryptor.installDataKeys(Map.of(2, encryptor.generateDataKey()), 2);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> encryptor.decrypt(encrypted));
+        assertEquals("Unknown data encryption key: 1", exception.getMessage());
+        assertThrows(IllegalStateException.class, () -> encryptor.encrypt(CARD_NUMBER, 1));
+    }
+
+    @Test
+    void decrypt_wrongKeyUnderSameId_shouldThrow() {
+        encryptor.installDataKeys(Map.of(1, encryptor.generateDataKey()), 1);
+        String encrypted = encryptor.encrypt(CARD_NUMBER);
+        encryptor.installDataKeys(Map.of(1, encryptor.generateDataKey()), 1);
+
+        assertThrows(RuntimeException.class, () -> encryptor.decrypt(encrypted));
+    }
+
+    @Test
+    void wrapKey_shouldRoundTripDataKey() {
+        SecretKey dataKey = encryptor.generateDataKey();
+
+        SecretKey unwrapped = encryptor.unwrapKey(encryptor.wrapKey(dataKey));
+
+        assertArrayEquals(dataKey.getEncoded(), unwrapped.getEncoded());
+        assertThrows(RuntimeException.class,
+                () -> newEncryptor(randomKey(), INDEX_KEY).unwrapKey(encryptor.wrapKey(dataKey)));
+    }
+
+    @Test
+    void cardNumberHash_shouldBeDeterministicPerIndexKey() {
+        String hash = encryptor.cardNumberHash(CARD_NUMBER);
+
+        assertEquals(64, hash.length());
+        assertEquals(hash, encryptor.cardNumberHash(CARD_NUMBER));
+        assertEquals(hash, newEncryptor(randomKey(), INDEX_KEY).cardNumberHash(CARD_NUMBER));
+        assertNotEquals(hash, encryptor.cardNumberHash("4276123456789013"));
+        assertNotEquals(hash, newEncryptor(MASTER_KEY, randomKey()).cardNumberHash(CARD_NUMBER));
+    }
+
+    @Test
+    void cardNumberHash_shouldNotDependOnDataKeyRotation() {
+        String hash = encryptor.cardNumberHash(CARD_NUMBER);
+
+        encryptor.installDataKeys(Map.of(5, encryptor.generateDataKey()), 5);
+
+        assertEquals(hash, encryptor.cardNumberHash(CARD_NUMBER));
+    }
+
+    @Test
+    void init_withoutKeys_shouldFail() {
+        assertThrows(IllegalStateException.class, () -> newEncryptor(null, INDEX_KEY));
+        assertThrows(IllegalStateException.class, () -> newEncryptor(MASTER_KEY, " "));
+        assertThrows(IllegalStateException.class, () -> newEncryptor(
+                Base64.getEncoder().encodeToString(new byte[20]), INDEX_KEY));
+        assertThrows(IllegalStateException.class, () -> newEncryptor(
+                MASTER_KEY, Base64.getEncoder().encodeToString(new byte[16])));
+    }
+
+    private void assertTamperRejected(String encrypted, String prefix) {
+        byte[] payload = Base64.getDecoder().decode(encrypted.substring(prefix.length()));
+        payload[payload.length - 1] ^= 0x01;
+        String tampered = prefix + Base64.getEncoder().encodeToString(payload);
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> encryptor.decrypt(tampered));
+        assertEquals("Ошибка при дешифровании данных", exception.getMessage());
+    }
+
+    private static CardDataEncryptor newEncryptor(String key, String indexKey) {
+        CardDataEncryptor encryptor = new CardDataEncryptor();
+        ReflectionTestUtils.setField(encryptor, "encodedKey", key);
+        ReflectionTestUtils.setField(encryptor, "encodedIndexKey", indexKey);
+        encryptor.init();
+        return encryptor;
+    }
+
+    private static String randomKey() {
+        return Base64.getEncoder().encodeToString(new CardDataEncryptor().generateDataKey().getEncoded());
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardExportFormat;
+import com.example.bankcards.dto.CardExportRow;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.CardType;
+import com.example.bankcards.repository.CardRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardExportServiceTest {
+
+    private static final LocalDate EXPIRY = LocalDate.now().plusYears(3);
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @InjectMocks
+    private CardExportService cardExportService;
+
+    @Test
+    void export_csv_shouldWriteHeaderAndPlainRow() throws IOException {
+        String[] lines = exportCsv(row("IVAN PETROV", "ivan"));
+
+        assertEquals("id,masked_card,card_holder_name,status,card_type,expiry_date,balance,user_id,username", lines[0]);
+        assertEquals("1,**** **** **** 1234,IVAN PETROV,ACTIVE,DEBIT," + EXPIRY + ",100.50,7,ivan", lines[1]);
+    }
+
+    @Test
+    void export_csv_formulaValues_shouldBePrefixedWithApostrophe() throws IOException {
+        assertEquals("'=1+2", holderCell("=1+2"));
+        assertEquals("'+79001234567", holderCell("+79001234567"));
+        assertEquals("'-2+3", holderCell("-2+3"));
+        assertEquals("'@SUM(A1:A2)", holderCell("@SUM(A1:A2)"));
+        assertEquals("'\tcmd", holderCell("\tcmd"));
+        assertEquals("IVAN=1", holderCell("IVAN=1"));
+    }
+
+    @Test
+    void export_csv_formulaWithQuotes_shouldBeEscapedAndQuoted() throws IOException {
+        String line = exportCsv(row("=HYPERLINK(\"http://evil\",\"x\")", "ivan"))[1];
+
+        assertEquals("1,**** **** **** 1234,\"'=HYPERLINK(\"\"http://evil\"\",\"\"x\"\")\",ACTIVE,DEBIT,"
+                + EXPIRY + ",100.50,7,ivan", line);
+    }
+
+    @Test
+    void export_csv_commasAndQuotes_shouldBeQuoted() throws IOException {
+        assertEquals("\"PETROV, IVAN\"", holderCell("PETROV, IVAN"));
+        assertEquals("\"IVAN \"\"VANYA\"\" PETROV\"", holderCell("IVAN \"VANYA\" PETROV"));
+    }
+
+    @Test
+    void export_csv_lineBreaks_shouldStayInsideQuotedCell() throws IOException {
+        String csv = exportCsvText(row("IVAN\nPETROV", "ivan"), row("ANNA", "\rANNA"));
+
+        assertTrue(csv.contains(",\"IVAN\nPETROV\",ACTIVE,"));
+        assertTrue(csv.endsWith(",7,\"'\rANNA\"\n"));
+    }
+
+    @Test
+    void export_csv_emptyAndNullValues_shouldBeEmptyCells() throws IOException {
+        String line = exportCsv(row(null, ""))[1];
+
+        assertEquals("1,**** **** **** 1234,,ACTIVE,DEBIT," + EXPIRY + ",100.50,7,", line);
+    }
+
+    @Test
+    void export_csv_expiredCard_shouldBeExportedAsExpired() throws IOException {
+        CardExportRow expired = row("IVAN PETROV", "ivan");
+        expired.setExpiryDate(LocalDate.now().minusDays(1));
+
+        assertTrue(exportCsv(expired)[1].contains(",EXPIRED,DEBIT,"));
+    }
+
+    private String holderCell(String holderName) throws IOException {
+        String line = exportCsv(row(holderName, "ivan"))[1];
+        String prefix = "1,**** **** **** 1234,";
+        String suffix = ",ACTIVE,DEBIT," + EXPIRY + ",100.50,7,ivan";
+        assertTrue(line.startsWith(prefix) && line.endsWith(suffix), line);
+        return line.substring(prefix.length(), line.length() - suffix.length());
+    }
+
+    private String[] exportCsv(CardExportRow... rows) throws IOException {
+        return exportCsvText(rows).split("\n");
+    }
+
+    private String exportCsvText(CardExportRow... rows) throws IOException {
+        when(cardRepository.streamForExport(null)).thenReturn(Stream.of(rows));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        cardExportService.export(CardExportFormat.CSV, null, false, out);
+
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static CardExportRow row(String holderName, String username) {
+        return new CardExportRow(1L, "**** **** **** 1234", holderName, CardStatus.ACTIVE, CardType.DEBIT,
+                EXPIRY, new BigDecimal("100.50"), 7L, username);
+    }
+}
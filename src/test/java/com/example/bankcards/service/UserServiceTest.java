@@ -0,0 +1,75 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.UserResponse;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @InjectMocks
+    private UserService userService;
+
+    @Test
+    void exportAllUsers_shouldWriteOneJsonObjectPerLine() throws IOException {
+        when(userRepository.streamAll()).thenReturn(Stream.of(user(1L, "ivan", Role.USER), user(2L, "petr", Role.ADMIN)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        userService.exportAllUsers(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"username\":\"ivan\""));
+        assertTrue(lines[1].contains("\"username\":\"petr\""));
+    }
+
+    @Test
+    void exportAllUsers_whenClientDisconnects_shouldThrowIOExceptionAndCloseCursor() {
+        AtomicBoolean closed = new AtomicBoolean();
+        // Больше буфера записи: обрыв соединения случается посреди курсора, а не на финальном flush
+        Stream<UserResponse> users = LongStream.rangeClosed(1, 5_000)
+                .mapToObj(id -> user(id, "user" + id, Role.USER))
+                .onClose(() -> closed.set(true));
+        when(userRepository.streamAll()).thenReturn(users);
+        OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        IOException exception = assertThrows(IOException.class, () -> userService.exportAllUsers(disconnected));
+
+        assertEquals("Broken pipe", exception.getMessage());
+        assertTrue(closed.get());
+    }
+
+    private static UserResponse user(Long id, String username, Role role) {
+        return new UserResponse(id, "First", "Last", "+7999000" + String.format("%04d", id),
+                username, username + "@example.com", role, null);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedCacheTest {
+
+    private static final Duration HOUR = Duration.ofHours(1);
+
+    @Test
+    void put_overCapacity_shouldEvictLeastRecentlyUsed() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2, HOUR, 1);
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        assertEquals(1, cache.get("a"));
+        cache.put("c", 3);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.get("c"));
+    }
+
+    @Test
+    void put_existingKey_shouldReplaceWithoutEviction() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2, HOUR, 1);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("a", 10);
+
+        assertEquals(2, cache.size());
+        assertEquals(10, cache.get("a"));
+        assertEquals(2, cache.get("b"));
+    }
+
+    @Test
+    void size_shouldNeverExceedMaxSizeAcrossSegments() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(64, HOUR);
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(i, i);
+        }
+
+        assertTrue(cache.size() <= 64);
+        assertEquals(9_999, cache.get(9_999));
+    }
+
+    @Test
+    void get_afterExpiry_shouldReturnNullAndDropEntry() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, HOUR, 1);
+        cache.put("a", 1, System.currentTimeMillis() - 1);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void put_withLongerExpiry_shouldBeCappedByTtl() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, Duration.ZERO, 1);
+        cache.put("a", 1, Long.MAX_VALUE);
+        cache.put("b", 2);
+
+        assertNull(cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    void get_beforeTtl_shouldReturnValue() throws InterruptedException {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, Duration.ofMillis(50), 1);
+        cache.put("a", 1);
+
+        assertEquals(1, cache.get("a"));
+        Thread.sleep(100);
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void remove_andClear_shouldDropEntries() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, HOUR);
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        cache.remove("a");
+        assertNull(cache.get("a"));
+        assertEquals(2, cache.get("b"));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+}
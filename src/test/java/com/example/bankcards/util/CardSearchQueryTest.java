@@ -0,0 +1,56 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardSearchQueryTest {
+
+    @Test
+    void lastFourPrefix_maskedNumber_shouldReturnDigitsAfterMask() {
+        assertEquals("1234", CardSearchQuery.lastFourPrefix("**** **** **** 1234"));
+        assertEquals("12", CardSearchQuery.lastFourPrefix("**** 12"));
+        assertEquals("34", CardSearchQuery.lastFourPrefix("12*34"));
+    }
+
+    @Test
+    void lastFourPrefix_withoutMaskOrDigitsAfterIt_shouldReturnNull() {
+        assertNull(CardSearchQuery.lastFourPrefix("12"));
+        assertNull(CardSearchQuery.lastFourPrefix("4276123456789012"));
+        assertNull(CardSearchQuery.lastFourPrefix("Ivan"));
+        assertNull(CardSearchQuery.lastFourPrefix("**** 12a"));
+        assertNull(CardSearchQuery.lastFourPrefix("**** ****"));
+        assertNull(CardSearchQuery.lastFourPrefix("1234 ****"));
+        assertNull(CardSearchQuery.lastFourPrefix("**** 12345"));
+    }
+
+    @Test
+    void cardDigits_shouldStripSpaces() {
+        assertEquals("34", CardSearchQuery.cardDigits("34"));
+        assertEquals("1234", CardSearchQuery.cardDigits("  12 34 "));
+        assertEquals("4276123456789012", CardSearchQuery.cardDigits("4276 1234 5678 9012"));
+    }
+
+    @Test
+    void cardDigits_notDigits_shouldReturnNull() {
+        assertNull(CardSearchQuery.cardDigits("Ivan"));
+        assertNull(CardSearchQuery.cardDigits("1234a"));
+        assertNull(CardSearchQuery.cardDigits("12-34"));
+        assertNull(CardSearchQuery.cardDigits("**** 1234"));
+        assertNull(CardSearchQuery.cardDigits("   "));
+    }
+
+    @Test
+    void holderNamePattern_shouldLowercaseTrimAndWrap() {
+        assertEquals("%ivan petrov%", CardSearchQuery.holderNamePattern("  IVAN Petrov "));
+    }
+
+    @Test
+    void holderNamePattern_shouldEscapeLikeWildcards() {
+        assertEquals("%100\\%%", CardSearchQuery.holderNamePattern("100%"));
+        assertEquals("%a\\_b%", CardSearchQuery.holderNamePattern("a_b"));
+        assertEquals("%c:\\\\x%", CardSearchQuery.holderNamePattern("C:\\x"));
+        // Обратная косая экранируется первой, иначе удвоились бы и экраны, добавленные для '%' и '_'
+        assertEquals("%\\\\\\%%", CardSearchQuery.holderNamePattern("\\%"));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    @Test
+    void encode_shouldRoundTrip() {
+        PageCursor cursor = new PageCursor(LocalDateTime.of(2024, 3, 15, 10, 30, 45, 123_456_000), 42L);
+
+        String encoded = cursor.encode();
+
+        assertEquals(cursor, PageCursor.decode(encoded));
+        assertFalse(encoded.contains("="));
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void encode_wholeSeconds_shouldRoundTrip() {
+        PageCursor cursor = new PageCursor(LocalDateTime.of(2024, 1, 1, 0, 0), Long.MAX_VALUE);
+
+        assertEquals(cursor, PageCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void decode_notBase64_shouldThrowBadRequest() {
+        assertThrows(BadRequestException.class, () -> PageCursor.decode("not a cursor!"));
+    }
+
+    @Test
+    void decode_withoutSeparator_shouldThrowBadRequest() {
+        assertThrows(BadRequestException.class, () -> PageCursor.decode(raw("2024-03-15T10:30:45")));
+    }
+
+    @Test
+    void decode_tamperedParts_shouldThrowBadRequest() {
+        assertThrows(BadRequestException.class, () -> PageCursor.decode(raw("2024-13-45T10:30:45|42")));
+        assertThrows(BadRequestException.class, () -> PageCursor.decode(raw("2024-03-15T10:30:45|42 OR 1=1")));
+        assertThrows(BadRequestException.class, () -> PageCursor.decode(raw("2024-03-15T10:30:45|")));
+        assertThrows(BadRequestException.class, () -> PageCursor.decode(raw("|42")));
+    }
+
+    @Test
+    void decode_emptyCursor_shouldThrowBadRequest() {
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> PageCursor.decode(""));
+
+        assertEquals("Invalid cursor", exception.getMessage());
+    }
+
+    private static String raw(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}